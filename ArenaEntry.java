@@ -0,0 +1,94 @@
+package comprehensive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents an Entry whose definition is kept off the heap in a
+ * DefinitionArena, so the Entry itself holds only the definition's location
+ * and length. The definition is decoded each time it is read, and changing
+ * it appends the new text to the arena, leaving the old text as garbage.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class ArenaEntry extends Entry {
+
+    private DefinitionArena arena;
+    private long location;
+    private int length;
+
+    /**
+     * Constructs a new ArenaEntry, copying its definition into the arena
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @param arena -- the arena to store the definition in
+     */
+    public ArenaEntry(PartOfSpeech partOfSpeech, String definition, DefinitionArena arena) {
+        super(partOfSpeech);
+        this.arena = arena;
+        this.length = GlossarySnapshot.utf8Length(definition);
+        this.location = arena.append(definition, length);
+    }
+
+    /**
+     * Getter for the Entry's definition, decoded from the arena
+     * @return -- the Entry's definition
+     */
+    @Override
+    public String getDefinition() {
+        return arena.decode(location, length);
+    }
+
+    /**
+     * Setter for the Entry's definition, which appends the new definition to the
+     * arena and leaves the old one behind as garbage
+     * @param definition -- the new definition
+     */
+    @Override
+    public void setDefinition(String definition) {
+        arena.release(length);
+        length = GlossarySnapshot.utf8Length(definition);
+        location = arena.append(definition, length);
+    }
+
+    /**
+     * Compares definitions byte by byte when both are in the same arena,
+     * so neither has to be decoded
+     * @param o -- the other Entry
+     * @return -- the comparison value between the two definitions
+     */
+    @Override
+    protected int compareDefinitions(Entry o) {
+        if (o instanceof ArenaEntry && ((ArenaEntry) o).arena == arena) {
+            ArenaEntry other = (ArenaEntry) o;
+            return arena.compare(location, length, other.location, other.length);
+        }
+
+        return super.compareDefinitions(o);
+    }
+
+    /**
+     * Gets a read-only view of the definition's UTF-8 bytes, for writing it out without decoding it
+     * @return -- a buffer whose position and limit span the definition
+     */
+    public ByteBuffer getDefinitionBytes() {
+        return arena.view(location, length);
+    }
+
+    /**
+     * Marks the definition as garbage once this Entry has been removed from the glossary
+     */
+    public void release() {
+        arena.release(length);
+    }
+
+    /**
+     * Copies the definition into another arena and stores it there from now on,
+     * which is how live definitions are compacted out of an arena full of garbage
+     * @param target -- the arena to move to
+     */
+    public void moveTo(DefinitionArena target) {
+        location = target.append(arena.view(location, length));
+        arena = target;
+    }
+}
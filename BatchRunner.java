@@ -0,0 +1,162 @@
+package comprehensive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * This class runs a stream of glossary commands without prompting, for
+ * scripted use. Each line holds one command, with its option number and
+ * arguments separated by :: as in a glossary file, for example
+ * 3::word or 9::word::noun::a definition. The last argument of option 7
+ * and option 9 is the definition, which runs to the end of the line and
+ * may itself contain ::. Blank lines and lines starting with # are skipped,
+ * and option 11 stops the run. Every command reads from one buffered reader
+ * and writes its result, followed by a blank line, to one buffered writer.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class BatchRunner {
+
+    private final Glossary glossary;
+    private long commandCount;
+    private long errorCount;
+
+    /**
+     * Constructs a new BatchRunner
+     * @param glossary -- the populated glossary to run commands against
+     */
+    public BatchRunner(Glossary glossary) {
+        this.glossary = glossary;
+    }
+
+    /**
+     * Gets the number of commands run so far, including ones that were rejected
+     * @return -- the number of commands
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * Gets the number of commands that were rejected as malformed or that failed
+     * @return -- the number of rejected commands
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Runs every command in a stream, stopping early at option 11.
+     * The writer is flushed, but neither stream is closed.
+     * @param in -- the commands, one per line
+     * @param out -- where the results are written
+     * @throws IOException -- if the commands could not be read or the results could not be written
+     */
+    public void run(BufferedReader in, Writer out) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            commandCount++;
+            if (!runCommand(line, lineNumber, out)) {
+                break;
+            }
+            out.append('\n');
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Runs a single command, writing its result or an error message
+     * @param line -- the command
+     * @param lineNumber -- the line the command is on, for error messages
+     * @param out -- where the result is written
+     * @return -- false if the command was option 11, otherwise true
+     * @throws IOException -- if the result could not be written
+     */
+    private boolean runCommand(String line, long lineNumber, Writer out) throws IOException {
+        String option = line;
+        int separator = line.indexOf("::");
+        if (separator >= 0) {
+            option = line.substring(0, separator);
+        }
+
+        try {
+            switch (option.trim()) {
+                case "1" -> out.append(glossary.option1());
+                case "2" -> {
+                    String[] args = arguments(line, 2);
+                    glossary.option2(args[0], args[1], out);
+                }
+                case "3" -> out.append(glossary.option3(arguments(line, 1)[0], true));
+                case "4" -> out.append(glossary.option4());
+                case "5" -> out.append(glossary.option5());
+                case "6" -> out.append(glossary.option6(arguments(line, 1)[0]));
+                case "7" -> {
+                    String[] args = arguments(line, 3);
+                    out.append(glossary.option7(args[0], Integer.parseInt(args[1].trim()), args[2]));
+                }
+                case "8" -> {
+                    String[] args = arguments(line, 2);
+                    out.append(glossary.option8(args[0], Integer.parseInt(args[1].trim())));
+                }
+                case "9" -> {
+                    String[] args = arguments(line, 3);
+                    out.append(glossary.option9(args[0], args[1].trim(), args[2]));
+                }
+                case "10" -> out.append(glossary.option10(arguments(line, 1)[0]));
+                case "11" -> {
+                    return false;
+                }
+                default -> {
+                    errorCount++;
+                    out.append("Invalid selection on line ").append(String.valueOf(lineNumber)).append(": ").append(line);
+                }
+            }
+        }
+        catch (IllegalArgumentException e) {
+            // Also covers a definition number that is not a number
+            errorCount++;
+            out.append("Invalid command on line ").append(String.valueOf(lineNumber)).append(": ").append(line);
+        }
+        catch (IOException e) {
+            errorCount++;
+            out.append("Command failed on line ").append(String.valueOf(lineNumber)).append(": ").append(line).append(" (").append(e.getMessage()).append(')');
+        }
+        catch (UncheckedIOException e) {
+            // An edit whose mutation log could not be written or compacted
+            errorCount++;
+            out.append("Command failed on line ").append(String.valueOf(lineNumber)).append(": ").append(line).append(" (").append(e.getCause().getMessage()).append(')');
+        }
+
+        out.append('\n');
+        return true;
+    }
+
+    /**
+     * Splits the arguments that follow the option number of a command
+     * @param line -- the command
+     * @param count -- the number of arguments the option takes; the last one runs to the end of the line
+     * @return -- the arguments
+     * @throws IllegalArgumentException -- if there are too few arguments
+     */
+    private static String[] arguments(String line, int count) {
+        String[] parts = line.split("::", count + 1);
+        if (parts.length != count + 1) {
+            throw new IllegalArgumentException("Expected " + count + " argument(s)");
+        }
+
+        String[] args = new String[count];
+        System.arraycopy(parts, 1, args, 0, count);
+
+        return args;
+    }
+}
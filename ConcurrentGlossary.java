@@ -0,0 +1,513 @@
+package comprehensive;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class represents a glossary that can be read and edited from many threads at once.
+ * Words are kept in a ConcurrentSkipListMap, and each word's SortedArrayList of entries
+ * is copy-on-write: an edit builds a new list and swaps it in atomically, so lookups
+ * never take a lock and never see a list partway through an edit. The counters behind
+ * option1 are atomic, so the statistics stay cheap to read while writers run.
+ * Output matches the single-threaded Glossary, except that option7 moves the updated
+ * Entry to its sorted position.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class ConcurrentGlossary {
+
+    private final ConcurrentSkipListMap<String, SortedArrayList<Entry>> glossary;
+    private final AtomicInteger wordCount;
+    private final AtomicInteger defCount;
+    private final AtomicIntegerArray pos;
+    private volatile GlossaryMetrics metrics;
+
+    /**
+     * Constructs a new, empty ConcurrentGlossary
+     */
+    public ConcurrentGlossary() {
+        this.glossary = new ConcurrentSkipListMap<>();
+        this.wordCount = new AtomicInteger();
+        this.defCount = new AtomicInteger();
+        this.pos = new AtomicIntegerArray(PartOfSpeech.COUNT);
+    }
+
+    /**
+     * Constructs a new ConcurrentGlossary holding a copy of an already populated Glossary
+     * @param source -- the glossary to copy
+     */
+    public ConcurrentGlossary(Glossary source) {
+        TreeMap<String, SortedArrayList<Entry>> copy = new TreeMap<>();
+        for (Map.Entry<String, SortedArrayList<Entry>> mapEntry : source.getGlossary().entrySet()) {
+            copy.put(mapEntry.getKey(), new SortedArrayList<>(mapEntry.getValue()));
+        }
+
+        // Building from a SortedMap lets the skip list link the sorted keys in one linear pass
+        this.glossary = new ConcurrentSkipListMap<>(copy);
+        this.wordCount = new AtomicInteger(source.getWordCount());
+        this.defCount = new AtomicInteger(source.getDefCount());
+        this.pos = new AtomicIntegerArray(PartOfSpeech.COUNT);
+        for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+            pos.set(partOfSpeech.code(), source.getPartOfSpeechCount(partOfSpeech));
+        }
+    }
+
+    /**
+     * Starts recording the latency of option1 through option10, along with misses
+     * from options 3, 6, 7 and 8. Calling this again returns the metrics already
+     * being recorded. Calls from every thread are recorded together, and a GlossaryServer
+     * records its /metadata, /definitions and /parts-of-speech lookups as option1, option3
+     * and option6.
+     * @return -- the metrics, which can be published with GlossaryMetrics.register
+     */
+    public synchronized GlossaryMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new GlossaryMetrics(this);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Getter for the metrics
+     * @return -- the metrics, or null if enableMetrics has not been called
+     */
+    public GlossaryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Getter for the word count
+     * @return -- the number of words
+     */
+    public int getWordCount() {
+        return wordCount.get();
+    }
+
+    /**
+     * Getter for the definition count
+     * @return -- the number of definitions
+     */
+    public int getDefCount() {
+        return defCount.get();
+    }
+
+    /**
+     * Getter for the number of definitions with a given part of speech
+     * @param partOfSpeech -- the part of speech
+     * @return -- the number of definitions with that part of speech
+     */
+    public int getPartOfSpeechCount(PartOfSpeech partOfSpeech) {
+        return pos.get(partOfSpeech.code());
+    }
+
+    /**
+     * Gets the first word in the glossary
+     * @return -- the first word, or null if the glossary is empty
+     */
+    public String getFirstWord() {
+        Map.Entry<String, SortedArrayList<Entry>> first = glossary.firstEntry();
+        return first == null ? null : first.getKey();
+    }
+
+    /**
+     * Gets the last word in the glossary
+     * @return -- the last word, or null if the glossary is empty
+     */
+    public String getLastWord() {
+        Map.Entry<String, SortedArrayList<Entry>> last = glossary.lastEntry();
+        return last == null ? null : last.getKey();
+    }
+
+    /**
+     * Gets the entries for a given word. Edits replace a word's list rather than
+     * changing it, so the list returned stays consistent, but it must not be modified.
+     * @param word -- the word
+     * @return -- the word's entries, or null if it is not in the glossary
+     */
+    public SortedArrayList<Entry> getEntries(String word) {
+        return glossary.get(word);
+    }
+
+    /**
+     * Gets the metadata for the glossary
+     * @return -- the metadata
+     */
+    public String option1() {
+        long startNanos = startTimer();
+        try {
+            String firstKey = " ";
+            String lastKey = " ";
+
+            Map.Entry<String, SortedArrayList<Entry>> first = glossary.firstEntry();
+            Map.Entry<String, SortedArrayList<Entry>> last = glossary.lastEntry();
+            if (first != null && last != null) {
+                firstKey = first.getKey();
+                lastKey = last.getKey();
+            }
+
+            int partsOfSpeech = 0;
+            for (int i = 0; i < pos.length(); i++) {
+                if (pos.get(i) != 0) {
+                    partsOfSpeech++;
+                }
+            }
+
+            return Glossary.formatMetadata(wordCount.get(), defCount.get(), partsOfSpeech, firstKey, lastKey);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION1, startNanos);
+        }
+    }
+
+    /**
+     * Gets all words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @return all words between the starting and end word
+     */
+    public String option2(String start, String end) {
+        long startNanos = startTimer();
+        try {
+            StringBuilder returnString = new StringBuilder();
+            for (String key : glossary.subMap(start, true, end, true).keySet()) {
+                returnString.append("\n       ").append(key);
+            }
+
+            return "The words between " + start + " and " + end + " are - " + returnString;
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION2, startNanos);
+        }
+    }
+
+    /**
+     * Gets one page of the words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param resumeToken -- the resume token from the previous page, or null for the first page
+     * @param pageSize -- the maximum number of words on the page
+     * @return -- the page of words, along with the token for the next page
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  or if the page size is not positive
+     */
+    public RangePage option2Page(String start, String end, String resumeToken, int pageSize) {
+        long startNanos = startTimer();
+        try {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("Page size must be positive");
+            }
+
+            NavigableMap<String, SortedArrayList<Entry>> range;
+            if (resumeToken == null || resumeToken.compareTo(start) < 0) {
+                range = glossary.subMap(start, true, end, true);
+            }
+            else if (resumeToken.compareTo(end) >= 0) {
+                return new RangePage(new ArrayList<>(), null);
+            }
+            else {
+                range = glossary.subMap(resumeToken, false, end, true);
+            }
+
+            ArrayList<String> words = new ArrayList<>(Math.min(pageSize, 1024));
+            Iterator<String> iterator = range.keySet().iterator();
+            while (words.size() < pageSize && iterator.hasNext()) {
+                words.add(iterator.next());
+            }
+
+            String nextToken = null;
+            if (iterator.hasNext() && !words.isEmpty()) {
+                nextToken = words.get(words.size() - 1);
+            }
+
+            return new RangePage(words, nextToken);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION2, startNanos);
+        }
+    }
+
+    /**
+     * Gets all entries for a given word
+     * @param word -- the word to find all entries for
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- all entries for a given word
+     */
+    public String option3(String word, boolean standalone) {
+        long startNanos = startTimer();
+        try {
+            SortedArrayList<Entry> entries = glossary.get(word);
+
+            if (entries == null) {
+                countMiss(GlossaryMetrics.Operation.OPTION3);
+                return String.format("%s not found", word);
+            }
+
+            return Glossary.formatDefinitions(word, entries, standalone);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION3, startNanos);
+        }
+    }
+
+    /**
+     * Gets all entries for the first word in the glossary
+     * @return -- all entries for the first word in the glossary
+     */
+    public String option4() {
+        long startNanos = startTimer();
+        try {
+            Map.Entry<String, SortedArrayList<Entry>> first = glossary.firstEntry();
+            if (first == null) {
+                return "The glossary is empty.";
+            }
+
+            return Glossary.formatEntries(first.getKey(), first.getValue());
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION4, startNanos);
+        }
+    }
+
+    /**
+     * Gets all entries for the last word in the glossary
+     * @return -- all entries for the last word in the glossary
+     */
+    public String option5() {
+        long startNanos = startTimer();
+        try {
+            Map.Entry<String, SortedArrayList<Entry>> last = glossary.lastEntry();
+            if (last == null) {
+                return "The glossary is empty.";
+            }
+
+            return Glossary.formatEntries(last.getKey(), last.getValue());
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION5, startNanos);
+        }
+    }
+
+    /**
+     * Gets all unique parts of speech for a given word
+     * @param word -- the given word
+     * @return -- all parts of speech
+     */
+    public String option6(String word) {
+        long startNanos = startTimer();
+        try {
+            SortedArrayList<Entry> entries = glossary.get(word);
+
+            if (entries == null) {
+                countMiss(GlossaryMetrics.Operation.OPTION6);
+                return word + " was not found in the glossary";
+            }
+
+            return Glossary.formatPartsOfSpeech(word, entries);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION6, startNanos);
+        }
+    }
+
+    /**
+     * Updates a definition for a given word, selecting from all definitions for the word
+     * @param word -- the word whose definition to update
+     * @param numToUpdate -- the number (essentially index) of the definition to update
+     * @param newDefinition -- the new definition
+     * @return -- output information after updating the definition
+     */
+    public String option7(String word, int numToUpdate, String newDefinition) {
+        long startNanos = startTimer();
+        try {
+
+            // Edits swap in a new list only if the word still has the list the edit was built from, and retry otherwise
+            while (true) {
+                SortedArrayList<Entry> entries = glossary.get(word);
+                if (entries == null) {
+                    countMiss(GlossaryMetrics.Operation.OPTION7);
+                    return word + " was not found in the glossary";
+                }
+
+                if (numToUpdate < 1 || numToUpdate > entries.size()) {
+                    countMiss(GlossaryMetrics.Operation.OPTION7);
+                    return "Definition doesn't exist";
+                }
+
+                SortedArrayList<Entry> copy = new SortedArrayList<>(entries);
+                Entry old = copy.remove(numToUpdate - 1);
+                copy.insert(new Entry(old.getPartOfSpeechCode(), newDefinition));
+                if (glossary.replace(word, entries, copy)) {
+                    return "Definition updated";
+                }
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION7, startNanos);
+        }
+    }
+
+    /**
+     * Deletes a definition for a given word,
+     * selecting from all definitions for the word.
+     * If the deletion results in no definitions for
+     * a word, it is deleted from the glossary.
+     * @param word -- the word to delete a definition from
+     * @param numToRemove -- the "index" of the definition to remove
+     * @return -- log information after deleting the definition
+     */
+    public String option8(String word, int numToRemove) {
+        long startNanos = startTimer();
+        try {
+            Entry removed;
+            SortedArrayList<Entry> remaining;
+            while (true) {
+                SortedArrayList<Entry> entries = glossary.get(word);
+                if (entries == null) {
+                    countMiss(GlossaryMetrics.Operation.OPTION8);
+                    return "Word doesn't exist";
+                }
+
+                if (numToRemove < 1 || numToRemove > entries.size()) {
+                    countMiss(GlossaryMetrics.Operation.OPTION8);
+                    return "Definition doesn't exist";
+                }
+
+                // Only the writer whose swap succeeds counts the removal, so a lost race is retried rather than counted twice
+                remaining = new SortedArrayList<>(entries);
+                removed = remaining.remove(numToRemove - 1);
+                if (remaining.size() == 0 ? glossary.remove(word, entries) : glossary.replace(word, entries, remaining)) {
+                    break;
+                }
+            }
+
+            defCount.decrementAndGet();
+            pos.decrementAndGet(removed.getPartOfSpeechCode().code());
+
+            String returnString = "Definition removed";
+            if (remaining.size() == 0) {
+                returnString += String.format("\n%s removed", word);
+                wordCount.decrementAndGet();
+            }
+
+            // The remaining definitions are rendered directly so they are not recorded as an option3 call
+            return returnString + "\n" + (remaining.size() == 0 ? String.format("%s not found", word) : Glossary.formatDefinitions(word, remaining, true));
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION8, startNanos);
+        }
+    }
+
+    /**
+     * Adds a new definition for a given word
+     * @param word -- the given word
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @return -- log information after adding the new Entry
+     */
+    public String option9(String word, String partOfSpeech, String definition) {
+        long startNanos = startTimer();
+        try {
+            PartOfSpeech code = PartOfSpeech.fromLabel(partOfSpeech);
+            if (code == null) {
+                return partOfSpeech + " is not a valid part of speech";
+            }
+
+            Entry newEntry = new Entry(code, definition);
+            boolean[] wordAdded = new boolean[1];
+            glossary.compute(word, (key, entries) -> {
+                wordAdded[0] = entries == null;
+                SortedArrayList<Entry> copy = entries == null ? new SortedArrayList<>() : new SortedArrayList<>(entries);
+                copy.insert(newEntry);
+                return copy;
+            });
+
+            if (wordAdded[0]) {
+                wordCount.incrementAndGet();
+            }
+            pos.incrementAndGet(code.code());
+            defCount.incrementAndGet();
+
+            return "Successfully added " + word;
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION9, startNanos);
+        }
+    }
+
+    /**
+     * Saves the glossary to a given file path. Edits made while the save
+     * is running may or may not be included, but every word is written
+     * with a complete list of entries.
+     * @param filename -- the file path and name of which is given by the user
+     * @return -- log information after saving the glossary
+     * @throws IOException -- if the glossary could not be written to the given file path
+     */
+    public String option10(String filename) throws IOException {
+        long startNanos = startTimer();
+        try {
+            new GlossaryWriter().save(glossary, Paths.get(filename));
+
+            return String.format("Successfully saved dictionary to %s", filename);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION10, startNanos);
+        }
+    }
+
+    /**
+     * Gets the first words in sorted order that start with a given prefix
+     * @param prefix -- the prefix typed so far
+     * @param limit -- the maximum number of words to return
+     * @return -- up to limit words starting with the prefix, in sorted order
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        List<String> words = new ArrayList<>();
+        for (String key : glossary.tailMap(prefix, true).keySet()) {
+            if (words.size() >= limit || !key.startsWith(prefix)) {
+                break;
+            }
+            words.add(key);
+        }
+
+        return words;
+    }
+
+    /**
+     * Reads the clock for the start of an instrumented call, if metrics are being recorded
+     * @return -- the current System.nanoTime, or 0 if metrics are not being recorded
+     */
+    long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the latency of an instrumented call, if metrics are being recorded
+     * @param operation -- the operation that was called
+     * @param startNanos -- the value startTimer returned when the call started
+     */
+    void stopTimer(GlossaryMetrics.Operation operation, long startNanos) {
+        GlossaryMetrics current = metrics;
+
+        // A call that started before metrics were enabled has no start time to measure from
+        if (current != null && startNanos != 0) {
+            current.record(operation, startNanos);
+        }
+    }
+
+    /**
+     * Counts a call that did not find the word or definition it was given, if metrics are being recorded
+     * @param operation -- the operation that was called
+     */
+    void countMiss(GlossaryMetrics.Operation operation) {
+        GlossaryMetrics current = metrics;
+        if (current != null) {
+            current.miss(operation);
+        }
+    }
+}
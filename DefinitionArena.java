@@ -0,0 +1,222 @@
+package comprehensive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * This class stores definition text off the Java heap, as UTF-8 in large
+ * direct ByteBuffer slabs that are only ever appended to. A definition is
+ * found by its location, which packs the slab index into the high 32 bits
+ * and the offset within the slab into the low 32 bits, together with its
+ * length in bytes.
+ *
+ * Replacing or removing a definition leaves its old bytes behind as garbage.
+ * The arena only counts that garbage; reclaiming it means moving the live
+ * definitions into a fresh arena, which ArenaEntry.moveTo does one entry at a time.
+ * Appending is synchronized so that parallel loaders can share one arena.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class DefinitionArena {
+
+    private static final int DEFAULT_SLAB_SIZE = 64 << 20;
+
+    private final int slabSize;
+    private ArrayList<ByteBuffer> slabs;
+    private ByteBuffer current;
+    private long liveBytes;
+    private long garbageBytes;
+
+    /**
+     * Constructs a new, empty DefinitionArena with 64 MB slabs
+     */
+    public DefinitionArena() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Constructs a new, empty DefinitionArena
+     * @param slabSize -- the size in bytes of each direct buffer the arena allocates
+     */
+    public DefinitionArena(int slabSize) {
+        this.slabSize = slabSize;
+        this.slabs = new ArrayList<>();
+    }
+
+    /**
+     * Gets the number of bytes held by definitions that are still in use
+     * @return -- the live bytes
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Gets the number of bytes left behind by replaced or removed definitions
+     * @return -- the garbage bytes
+     */
+    public long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * Gets the number of bytes of direct memory allocated by this arena
+     * @return -- the total size of the slabs
+     */
+    public long getCapacity() {
+        long capacity = 0;
+        for (ByteBuffer slab : slabs) {
+            capacity += slab.capacity();
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Copies a definition into the arena as UTF-8
+     * @param definition -- the definition to store
+     * @param length -- the UTF-8 length of the definition in bytes
+     * @return -- the location of the stored definition
+     */
+    synchronized long append(String definition, int length) {
+        long location = reserve(length);
+        ByteBuffer slab = slabs.get(slabIndex(location));
+        int offset = slabOffset(location);
+
+        // ASCII is by far the common case, so only fall back to the full encoder when it is needed
+        int i = 0;
+        while (i < length && i < definition.length() && definition.charAt(i) < 0x80) {
+            slab.put(offset + i, (byte) definition.charAt(i));
+            i++;
+        }
+        if (i < length) {
+            slab.put(offset, definition.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return location;
+    }
+
+    /**
+     * Copies UTF-8 bytes, such as a definition held by another arena, into the arena
+     * @param bytes -- the bytes between the buffer's position and limit are copied
+     * @return -- the location of the stored bytes
+     */
+    synchronized long append(ByteBuffer bytes) {
+        int length = bytes.remaining();
+        long location = reserve(length);
+        slabs.get(slabIndex(location)).put(slabOffset(location), bytes, bytes.position(), length);
+
+        return location;
+    }
+
+    /**
+     * Decodes a stored definition
+     * @param location -- the location of the definition
+     * @param length -- the length of the definition in bytes
+     * @return -- the definition
+     */
+    String decode(long location, int length) {
+        byte[] bytes = new byte[length];
+        slabs.get(slabIndex(location)).get(slabOffset(location), bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets a read-only view of a stored definition's bytes
+     * @param location -- the location of the definition
+     * @param length -- the length of the definition in bytes
+     * @return -- a buffer whose position and limit span the definition
+     */
+    ByteBuffer view(long location, int length) {
+        return slabs.get(slabIndex(location)).slice(slabOffset(location), length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Compares two stored definitions in the same order as String.compareTo
+     * compares them once decoded, without decoding them
+     * @param location -- the location of the first definition
+     * @param length -- the length of the first definition in bytes
+     * @param otherLocation -- the location of the second definition
+     * @param otherLength -- the length of the second definition in bytes
+     * @return -- a negative number, zero or a positive number as the first
+     *            definition is less than, equal to or greater than the second
+     */
+    int compare(long location, int length, long otherLocation, int otherLength) {
+        ByteBuffer slab = slabs.get(slabIndex(location));
+        ByteBuffer otherSlab = slabs.get(slabIndex(otherLocation));
+        int offset = slabOffset(location);
+        int otherOffset = slabOffset(otherLocation);
+
+        int shared = Math.min(length, otherLength);
+        int mismatch = 0;
+        while (mismatch < shared && slab.get(offset + mismatch) == otherSlab.get(otherOffset + mismatch)) {
+            mismatch++;
+        }
+
+        if (mismatch == shared) {
+            return length - otherLength;
+        }
+
+        int b = slab.get(offset + mismatch) & 0xFF;
+        int otherB = otherSlab.get(otherOffset + mismatch) & 0xFF;
+
+        // UTF-8 bytes sort by code point, but String.compareTo sorts by UTF-16 unit, which puts
+        // supplementary characters (lead bytes F0 to F4) before U+E000 to U+FFFF (lead bytes EE and EF)
+        if (b >= 0xF0 && (otherB == 0xEE || otherB == 0xEF)) {
+            return -1;
+        }
+        if (otherB >= 0xF0 && (b == 0xEE || b == 0xEF)) {
+            return 1;
+        }
+
+        return b - otherB;
+    }
+
+    /**
+     * Records that a stored definition is no longer in use
+     * @param length -- the length of the definition in bytes
+     */
+    synchronized void release(int length) {
+        liveBytes -= length;
+        garbageBytes += length;
+    }
+
+    /**
+     * Finds room for a new definition, starting a new slab if the current one is full
+     * @param length -- the number of bytes needed
+     * @return -- the location of the reserved bytes
+     */
+    private long reserve(int length) {
+        if (current == null || current.remaining() < length) {
+            current = ByteBuffer.allocateDirect(Math.max(slabSize, length));
+            slabs.add(current);
+        }
+
+        int offset = current.position();
+        current.position(offset + length);
+        liveBytes += length;
+
+        return ((long) (slabs.size() - 1) << 32) | offset;
+    }
+
+    /**
+     * Gets the slab index packed into a location
+     * @param location -- the location
+     * @return -- the index of the slab
+     */
+    private static int slabIndex(long location) {
+        return (int) (location >>> 32);
+    }
+
+    /**
+     * Gets the offset within its slab packed into a location
+     * @param location -- the location
+     * @return -- the offset in bytes
+     */
+    private static int slabOffset(long location) {
+        return (int) location;
+    }
+}
@@ -0,0 +1,393 @@
+package comprehensive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * This class represents an inverted index from the tokens of definitions
+ * to the entries whose definitions contain them, used to answer full-text
+ * queries without scanning every Entry in the glossary.
+ * <p>
+ * Every indexed definition gets an increasing int id, and each token's
+ * postings are the ids of the definitions containing it, delta-encoded as
+ * variable-length ints with a skip pointer every SKIP_INTERVAL postings.
+ * Because ids only grow, adding a definition only ever appends to posting
+ * lists. Removing or updating a definition retires its old id instead of
+ * rewriting the lists, and the index is rebuilt once retired ids outnumber
+ * live ones.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class DefinitionIndex {
+
+    private static final int SKIP_INTERVAL = 64;
+    private static final int MIN_RETIRED_TO_COMPACT = 1024;
+
+    private HashMap<String, PostingList> postings;
+    private ArrayList<String> words;
+    private ArrayList<Entry> entries;
+    private IdentityHashMap<Entry, Integer> ids;
+    private int retiredCount;
+
+    /**
+     * Constructs a new, empty DefinitionIndex
+     */
+    public DefinitionIndex() {
+        this.postings = new HashMap<>();
+        this.words = new ArrayList<>();
+        this.entries = new ArrayList<>();
+        this.ids = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the number of definitions in this index.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Indexes the definition of a newly added entry
+     * @param word -- the word the entry belongs to
+     * @param entry -- the added entry
+     */
+    public void add(String word, Entry entry) {
+        int id = entries.size();
+        words.add(word);
+        entries.add(entry);
+        ids.put(entry, id);
+
+        for (String token : tokenize(entry.getDefinition())) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(token, list);
+            }
+            // A token repeated within one definition is only posted once
+            if (list.last != id) {
+                list.append(id);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from this index
+     * @param entry -- the removed entry
+     */
+    public void remove(Entry entry) {
+        Integer id = ids.remove(entry);
+        if (id == null) {
+            return;
+        }
+
+        entries.set(id, null);
+        words.set(id, null);
+        retiredCount++;
+
+        if (retiredCount >= MIN_RETIRED_TO_COMPACT && retiredCount > ids.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Re-indexes an entry after its definition has changed
+     * @param word -- the word the entry belongs to
+     * @param entry -- the updated entry
+     */
+    public void update(String word, Entry entry) {
+        remove(entry);
+        add(word, entry);
+    }
+
+    /**
+     * Finds the entries whose definitions contain every token of a query
+     * @param query -- the words to search for
+     * @return -- the matching entries, grouped by word in sorted order
+     */
+    public TreeMap<String, SortedArrayList<Entry>> matchAll(String query) {
+        TreeMap<String, SortedArrayList<Entry>> result = new TreeMap<>();
+
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return result;
+        }
+
+        Cursor[] cursors = new Cursor[tokens.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            PostingList list = postings.get(tokens.get(i));
+            if (list == null) {
+                return result;
+            }
+            cursors[i] = new Cursor(list);
+        }
+
+        // Lead with the shortest list so the others mostly skip
+        Arrays.sort(cursors, (a, b) -> Integer.compare(a.list.count, b.list.count));
+        Cursor lead = cursors[0];
+        if (!lead.next()) {
+            return result;
+        }
+
+        int candidate = lead.current;
+        int matched = 1;
+        while (true) {
+            if (matched == cursors.length) {
+                collect(candidate, result);
+                if (!lead.next()) {
+                    break;
+                }
+                candidate = lead.current;
+                matched = 1;
+                continue;
+            }
+
+            Cursor cursor = cursors[matched];
+            if (!cursor.advance(candidate)) {
+                break;
+            }
+
+            if (cursor.current == candidate) {
+                matched++;
+            }
+            else {
+                if (!lead.advance(cursor.current)) {
+                    break;
+                }
+                candidate = lead.current;
+                matched = 1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the entries whose definitions contain any token of a query
+     * @param query -- the words to search for
+     * @return -- the matching entries, grouped by word in sorted order
+     */
+    public TreeMap<String, SortedArrayList<Entry>> matchAny(String query) {
+        TreeMap<String, SortedArrayList<Entry>> result = new TreeMap<>();
+
+        ArrayList<PostingList> lists = new ArrayList<>();
+        int total = 0;
+        for (String token : tokenize(query)) {
+            PostingList list = postings.get(token);
+            if (list != null && !lists.contains(list)) {
+                lists.add(list);
+                total += list.count;
+            }
+        }
+
+        int[] matches = new int[total];
+        int length = 0;
+        for (PostingList list : lists) {
+            Cursor cursor = new Cursor(list);
+            while (cursor.next()) {
+                matches[length++] = cursor.current;
+            }
+        }
+
+        Arrays.sort(matches, 0, length);
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || matches[i] != matches[i - 1]) {
+                collect(matches[i], result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits text into lower-case tokens made of letters and digits
+     * @param text -- the text to split
+     * @return -- the tokens in the order they appear
+     */
+    static List<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            }
+            else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Adds the entry with the given id to a query result, unless it has been retired
+     * @param id -- the id of the definition
+     * @param result -- the query result
+     */
+    private void collect(int id, TreeMap<String, SortedArrayList<Entry>> result) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+
+        SortedArrayList<Entry> matches = result.get(words.get(id));
+        if (matches == null) {
+            matches = new SortedArrayList<>();
+            result.put(words.get(id), matches);
+        }
+        matches.insert(entry);
+    }
+
+    /**
+     * Rebuilds the index from its live entries, dropping retired ids
+     */
+    private void compact() {
+        ArrayList<String> oldWords = words;
+        ArrayList<Entry> oldEntries = entries;
+
+        postings = new HashMap<>();
+        words = new ArrayList<>(ids.size());
+        entries = new ArrayList<>(ids.size());
+        ids = new IdentityHashMap<>();
+        retiredCount = 0;
+
+        for (int i = 0; i < oldEntries.size(); i++) {
+            if (oldEntries.get(i) != null) {
+                add(oldWords.get(i), oldEntries.get(i));
+            }
+        }
+    }
+
+    /**
+     * The ids of the definitions containing one token, in increasing order
+     */
+    private static class PostingList {
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        // For each block of SKIP_INTERVAL postings: its first id, the offset
+        // of that id in data, and the id before it that the delta is taken from
+        private int[] skipFirst = new int[1];
+        private int[] skipOffset = new int[1];
+        private int[] skipPrevious = new int[1];
+
+        /**
+         * Appends an id, which must be greater than every id already in the list
+         * @param id -- the id to append
+         */
+        void append(int id) {
+            if (count % SKIP_INTERVAL == 0) {
+                int block = count / SKIP_INTERVAL;
+                if (block == skipFirst.length) {
+                    skipFirst = Arrays.copyOf(skipFirst, block * 2);
+                    skipOffset = Arrays.copyOf(skipOffset, block * 2);
+                    skipPrevious = Arrays.copyOf(skipPrevious, block * 2);
+                }
+                skipFirst[block] = id;
+                skipOffset[block] = length;
+                skipPrevious[block] = last;
+            }
+
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+
+            int delta = id - last;
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+
+            last = id;
+            count++;
+        }
+    }
+
+    /**
+     * Walks a posting list in order, using its skip pointers to jump ahead
+     */
+    private static class Cursor {
+        private final PostingList list;
+        private int offset;
+        private int index;
+        private int current = -1;
+
+        Cursor(PostingList list) {
+            this.list = list;
+        }
+
+        /**
+         * Moves to the next id in the list
+         * @return -- false if the list is exhausted
+         */
+        boolean next() {
+            if (index == list.count) {
+                return false;
+            }
+
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list.data[offset++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            current += delta;
+            index++;
+            return true;
+        }
+
+        /**
+         * Moves to the first id that is at least the target
+         * @param target -- the smallest acceptable id
+         * @return -- false if there is no such id
+         */
+        boolean advance(int target) {
+            if (index > 0 && current >= target) {
+                return true;
+            }
+
+            // Find the last block starting at or before the target, past the current position
+            int low = index / SKIP_INTERVAL;
+            int high = (list.count - 1) / SKIP_INTERVAL;
+            int block = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (list.skipFirst[mid] <= target) {
+                    block = mid;
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+
+            if (block >= 0 && block * SKIP_INTERVAL >= index) {
+                offset = list.skipOffset[block];
+                current = list.skipPrevious[block];
+                index = block * SKIP_INTERVAL;
+            }
+
+            while (next()) {
+                if (current >= target) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+}
@@ -3,13 +3,14 @@ package comprehensive;
 /**
  * This class represents an entry in the glossary, where a word
  * can have multiple entries that contain a part of speech and a definition.
+ * The part of speech is held as its compact PartOfSpeech code.
  *
  * @author Peter Giolas and Thomas Lu
  * @version 12/06/2024
  */
 public class Entry implements Comparable<Entry> {
 
-    private String partOfSpeech;
+    private final byte partOfSpeech;
     private String definition;
 
     /**
@@ -17,8 +18,32 @@ public class Entry implements Comparable<Entry> {
      * @param partOfSpeech -- the new Entry's part of speech
      * @param definition -- the new Entry's definition
      */
+    public Entry(PartOfSpeech partOfSpeech, String definition) {
+        this.partOfSpeech = partOfSpeech.code();
+        this.definition = definition;
+    }
+
+    /**
+     * Constructs a new Entry for a subclass that stores its definition elsewhere
+     * @param partOfSpeech -- the new Entry's part of speech
+     */
+    protected Entry(PartOfSpeech partOfSpeech) {
+        this.partOfSpeech = partOfSpeech.code();
+    }
+
+    /**
+     * Constructs a new Entry
+     * @param partOfSpeech -- the label of the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @throws IllegalArgumentException -- if the label is not a valid part of speech
+     */
     public Entry(String partOfSpeech, String definition) {
-        this.partOfSpeech = partOfSpeech;
+        PartOfSpeech code = PartOfSpeech.fromLabel(partOfSpeech);
+        if (code == null) {
+            throw new IllegalArgumentException(partOfSpeech + " is not a valid part of speech");
+        }
+
+        this.partOfSpeech = code.code();
         this.definition = definition;
     }
 
@@ -30,21 +55,38 @@ public class Entry implements Comparable<Entry> {
      */
     @Override
     public int compareTo(Entry o) {
-        if (this.partOfSpeech.equals(o.partOfSpeech)) {
-            return this.definition.compareTo(o.definition);
+        if (this.partOfSpeech == o.partOfSpeech) {
+            return compareDefinitions(o);
         }
         else {
-            return this.partOfSpeech.compareTo(o.partOfSpeech);
+            return this.partOfSpeech - o.partOfSpeech;
         }
     }
 
+    /**
+     * Compares this Entry's definition with another's, in the order of String.compareTo
+     * @param o -- the other Entry
+     * @return -- the comparison value between the two definitions
+     */
+    protected int compareDefinitions(Entry o) {
+        return this.getDefinition().compareTo(o.getDefinition());
+    }
+
     /**
      * Getter for the Entry's part of speech
      * @return -- the Entry's part of speech
      */
     public String getPartOfSpeech() {
-        return partOfSpeech;
+        return PartOfSpeech.fromCode(partOfSpeech).toString();
+
+    }
 
+    /**
+     * Getter for the Entry's part of speech code
+     * @return -- the Entry's part of speech code
+     */
+    public PartOfSpeech getPartOfSpeechCode() {
+        return PartOfSpeech.fromCode(partOfSpeech);
     }
 
     /**
@@ -0,0 +1,376 @@
+package comprehensive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents an immutable, sorted set of words packed into one
+ * byte array with front coding. The words are split into blocks of
+ * BLOCK_SIZE; the first word of each block is stored whole as UTF-8, and
+ * each word after it stores only the length of the prefix it shares with
+ * the word before it plus the rest of its bytes. A small sparse index holds
+ * the offset of each block, so a lookup binary searches the first words of
+ * the blocks and then decodes at most one block, all within a single array.
+ *
+ * Words are compared in the same order as String.compareTo without being
+ * decoded. Words are stored as UTF-8, so a word containing an unpaired
+ * surrogate character reads back with a '?' in its place.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class FrontCodedKeys implements Iterable<String> {
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+    private final int maxWordLength;
+
+    /**
+     * Constructs a new FrontCodedKeys holding the given words
+     * @param sortedWords -- the words, in sorted order and without duplicates
+     */
+    public FrontCodedKeys(Collection<String> sortedWords) {
+        this.size = sortedWords.size();
+        this.blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+
+        byte[] bytes = new byte[Math.max(16, size * 8)];
+        int length = 0;
+        int longest = 0;
+        byte[] previous = new byte[0];
+        int index = 0;
+
+        for (String word : sortedWords) {
+            byte[] current = word.getBytes(StandardCharsets.UTF_8);
+            longest = Math.max(longest, current.length);
+
+            // Room for the bytes plus two varints of at most five bytes each
+            if (length + current.length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + current.length + 10));
+            }
+
+            if (index % BLOCK_SIZE == 0) {
+                blockOffsets[index / BLOCK_SIZE] = length;
+                length = putVarint(bytes, length, current.length);
+                System.arraycopy(current, 0, bytes, length, current.length);
+                length += current.length;
+            }
+            else {
+                int shared = Arrays.mismatch(previous, current);
+                if (shared < 0) {
+                    shared = current.length;
+                }
+                length = putVarint(bytes, length, shared);
+                length = putVarint(bytes, length, current.length - shared);
+                System.arraycopy(current, shared, bytes, length, current.length - shared);
+                length += current.length - shared;
+            }
+
+            previous = current;
+            index++;
+        }
+
+        this.data = Arrays.copyOf(bytes, length);
+        this.maxWordLength = longest;
+    }
+
+    /**
+     * Returns the number of words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes used by the packed words and their sparse index
+     * @return -- the encoded size in bytes
+     */
+    public long getEncodedSize() {
+        return data.length + 4L * blockOffsets.length;
+    }
+
+    /**
+     * Gets the word at the given index in sorted order
+     * @param index -- the index of the word
+     * @return -- the word
+     * @throws IndexOutOfBoundsException -- if the index is not between 0 and size() - 1
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        Decoder decoder = new Decoder(index - index % BLOCK_SIZE);
+        for (int i = index % BLOCK_SIZE; i > 0; i--) {
+            decoder.next();
+        }
+
+        return decoder.word();
+    }
+
+    /**
+     * Finds the index of a word
+     * @param word -- the word to find
+     * @return -- the index of the word, if it is present; otherwise,
+     *         (-(insertion point) - 1), as with Arrays.binarySearch
+     */
+    public int indexOf(String word) {
+        byte[] goal = word.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(goal);
+        if (index < size && matchesAt(index, goal)) {
+            return index;
+        }
+
+        return -(index + 1);
+    }
+
+    /**
+     * Finds the index of the first word that is greater than or equal to the given word
+     * @param word -- the word to compare against
+     * @return -- the index of the first such word, or size() if there is none
+     */
+    public int ceilingIndex(String word) {
+        return lowerBound(word.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns an iterator over the words in sorted order.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator over the words in sorted order, starting at the given index
+     * @param from -- the index of the first word to return
+     */
+    public Iterator<String> iterator(int from) {
+        return new Iterator<>() {
+
+            private Decoder decoder;
+            private int index = Math.max(0, from);
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                if (decoder == null || index % BLOCK_SIZE == 0) {
+                    decoder = new Decoder(index - index % BLOCK_SIZE);
+                    for (int i = index % BLOCK_SIZE; i > 0; i--) {
+                        decoder.next();
+                    }
+                }
+                else {
+                    decoder.next();
+                }
+                index++;
+
+                return decoder.word();
+            }
+        };
+    }
+
+    /**
+     * Finds the index of the first word whose bytes are greater than or equal to the goal
+     * @param goal -- the UTF-8 bytes of the word to compare against
+     * @return -- the index of the first such word, or size if there is none
+     */
+    private int lowerBound(byte[] goal) {
+        if (size == 0) {
+            return 0;
+        }
+
+        // Find the last block whose first word is at most the goal
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = blockOffsets[mid];
+            int length = getVarint(offset);
+            int start = offset + varintSize(length);
+            if (compare(data, start, start + length, goal, 0, goal.length) <= 0) {
+                block = mid;
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+
+        if (block < 0) {
+            return 0;
+        }
+
+        int first = block * BLOCK_SIZE;
+        int last = Math.min(first + BLOCK_SIZE, size);
+        Decoder decoder = new Decoder(first);
+        for (int index = first; index < last; index++) {
+            if (index > first) {
+                decoder.next();
+            }
+            if (compare(decoder.bytes, 0, decoder.length, goal, 0, goal.length) >= 0) {
+                return index;
+            }
+        }
+
+        return last;
+    }
+
+    /**
+     * Determines if the word at the given index has exactly the given bytes
+     * @param index -- the index of the word
+     * @param goal -- the UTF-8 bytes to match
+     * @return -- true if they match, otherwise false
+     */
+    private boolean matchesAt(int index, byte[] goal) {
+        Decoder decoder = new Decoder(index - index % BLOCK_SIZE);
+        for (int i = index % BLOCK_SIZE; i > 0; i--) {
+            decoder.next();
+        }
+
+        return Arrays.equals(decoder.bytes, 0, decoder.length, goal, 0, goal.length);
+    }
+
+    /**
+     * Compares two ranges of UTF-8 bytes in the same order as String.compareTo
+     * compares the words they encode
+     * @param a -- the first array
+     * @param aFrom -- the start of the first range
+     * @param aTo -- the end of the first range
+     * @param b -- the second array
+     * @param bFrom -- the start of the second range
+     * @param bTo -- the end of the second range
+     * @return -- a negative number, zero or a positive number as the first
+     *            word is less than, equal to or greater than the second
+     */
+    static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int mismatch = Arrays.mismatch(a, aFrom, aTo, b, bFrom, bTo);
+        if (mismatch < 0) {
+            return 0;
+        }
+        if (mismatch == aTo - aFrom || mismatch == bTo - bFrom) {
+            return (aTo - aFrom) - (bTo - bFrom);
+        }
+
+        int x = a[aFrom + mismatch] & 0xFF;
+        int y = b[bFrom + mismatch] & 0xFF;
+
+        // UTF-8 bytes sort by code point, but String.compareTo sorts by UTF-16 unit, which puts
+        // supplementary characters (lead bytes F0 to F4) before U+E000 to U+FFFF (lead bytes EE and EF)
+        if (x >= 0xF0 && (y == 0xEE || y == 0xEF)) {
+            return -1;
+        }
+        if (y >= 0xF0 && (x == 0xEE || x == 0xEF)) {
+            return 1;
+        }
+
+        return x - y;
+    }
+
+    /**
+     * Writes an int as a variable-length sequence of 7-bit groups
+     * @param bytes -- the array to write to
+     * @param offset -- the index to write at
+     * @param value -- the non-negative value
+     * @return -- the index just past the written bytes
+     */
+    private static int putVarint(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+
+        return offset;
+    }
+
+    /**
+     * Reads a variable-length int from the packed words
+     * @param offset -- the index of its first byte
+     * @return -- the value
+     */
+    private int getVarint(int offset) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[offset++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+
+    /**
+     * Gets the number of bytes a variable-length int takes up
+     * @param value -- the non-negative value
+     * @return -- the number of bytes
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Rebuilds the words of one block in order, reusing a single byte array
+     */
+    private class Decoder {
+
+        private final byte[] bytes = new byte[maxWordLength];
+        private int length;
+        private int offset;
+
+        /**
+         * Constructs a new Decoder positioned on the first word of a block
+         * @param first -- the index of the first word of the block
+         */
+        private Decoder(int first) {
+            offset = blockOffsets[first / BLOCK_SIZE];
+            length = getVarint(offset);
+            offset += varintSize(length);
+            System.arraycopy(data, offset, bytes, 0, length);
+            offset += length;
+        }
+
+        /**
+         * Moves on to the next word in the block
+         */
+        private void next() {
+            int shared = getVarint(offset);
+            offset += varintSize(shared);
+            int suffix = getVarint(offset);
+            offset += varintSize(suffix);
+            System.arraycopy(data, offset, bytes, shared, suffix);
+            offset += suffix;
+            length = shared + suffix;
+        }
+
+        /**
+         * Decodes the current word
+         * @return -- the current word
+         */
+        private String word() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
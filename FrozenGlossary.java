@@ -0,0 +1,513 @@
+package comprehensive;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * This class represents a read-optimized glossary for read-mostly workloads.
+ * Its words are packed into a FrontCodedKeys, with each word's SortedArrayList
+ * of entries at the same index in a parallel array, which takes far less memory
+ * per word than a TreeMap and keeps lookups within two arrays. Edits are not
+ * made to the packed words; instead each edited word's new list (or null, if it
+ * was removed) goes into a small TreeMap of changes that takes precedence over
+ * them, and that map is merged into a new packed layout once it grows large.
+ * Like ConcurrentGlossary, edits copy the word's list rather than changing it,
+ * so output matches Glossary except that option7 moves the updated Entry to
+ * its sorted position.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class FrozenGlossary {
+
+    // The changes are merged once there are this many, or one for every eight packed words if that is more
+    private static final int MIN_CHANGES_TO_MERGE = 1024;
+
+    private FrontCodedKeys words;
+    private SortedArrayList<Entry>[] entries;
+    private TreeMap<String, SortedArrayList<Entry>> changes;
+    private int wordCount;
+    private int defCount;
+    private int[] pos;
+
+    /**
+     * Constructs a new FrozenGlossary holding the contents of an already populated Glossary.
+     * The entry lists are shared with the source, so the source should not be edited afterwards.
+     * @param source -- the glossary to freeze
+     */
+    public FrozenGlossary(Glossary source) {
+        this.changes = new TreeMap<>();
+        this.wordCount = source.getWordCount();
+        this.defCount = source.getDefCount();
+        this.pos = new int[PartOfSpeech.COUNT];
+        for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+            pos[partOfSpeech.code()] = source.getPartOfSpeechCount(partOfSpeech);
+        }
+
+        pack(source.getGlossary().keySet(), source.getGlossary().values());
+    }
+
+    /**
+     * Gets the number of bytes used by the packed words, not counting their entries
+     * @return -- the encoded size of the packed words
+     */
+    public long getPackedWordsSize() {
+        return words.getEncodedSize();
+    }
+
+    /**
+     * Gets the metadata for the glossary
+     * @return -- the metadata
+     */
+    public String option1() {
+        String firstKey = " ";
+        String lastKey = " ";
+
+        Cursor first = new Cursor(null, false, null);
+        if (first.next()) {
+            firstKey = first.word;
+            lastKey = lastWord();
+        }
+
+        int partsOfSpeech = 0;
+        for (int count : pos) {
+            if (count != 0) {
+                partsOfSpeech++;
+            }
+        }
+
+        return Glossary.formatMetadata(wordCount, defCount, partsOfSpeech, firstKey, lastKey);
+    }
+
+    /**
+     * Gets all words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @return all words between the starting and end word
+     * @throws IllegalArgumentException -- if the starting word comes after the end word
+     */
+    public String option2(String start, String end) {
+        checkRange(start, end);
+
+        StringBuilder returnString = new StringBuilder();
+        Cursor cursor = new Cursor(start, true, end);
+        while (cursor.next()) {
+            returnString.append("\n       ").append(cursor.word);
+        }
+
+        return "The words between " + start + " and " + end + " are - " + returnString;
+    }
+
+    /**
+     * Gets one page of the words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param resumeToken -- the resume token from the previous page, or null for the first page
+     * @param pageSize -- the maximum number of words on the page
+     * @return -- the page of words, along with the token for the next page
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  or if the page size is not positive
+     */
+    public RangePage option2Page(String start, String end, String resumeToken, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        checkRange(start, end);
+
+        Cursor cursor;
+        if (resumeToken == null || resumeToken.compareTo(start) < 0) {
+            cursor = new Cursor(start, true, end);
+        }
+        else if (resumeToken.compareTo(end) >= 0) {
+            return new RangePage(new ArrayList<>(), null);
+        }
+        else {
+            cursor = new Cursor(resumeToken, false, end);
+        }
+
+        ArrayList<String> page = new ArrayList<>(Math.min(pageSize, 1024));
+        boolean more = cursor.next();
+        while (more && page.size() < pageSize) {
+            page.add(cursor.word);
+            more = cursor.next();
+        }
+
+        String nextToken = null;
+        if (more && !page.isEmpty()) {
+            nextToken = page.get(page.size() - 1);
+        }
+
+        return new RangePage(page, nextToken);
+    }
+
+    /**
+     * Gets all entries for a given word
+     * @param word -- the word to find all entries for
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- all entries for a given word
+     */
+    public String option3(String word, boolean standalone) {
+        SortedArrayList<Entry> wordEntries = lookup(word);
+
+        if (wordEntries == null) {
+            return String.format("%s not found", word);
+        }
+
+        return Glossary.formatDefinitions(word, wordEntries, standalone);
+    }
+
+    /**
+     * Gets all entries for the first word in the glossary
+     * @return -- all entries for the first word in the glossary
+     */
+    public String option4() {
+        Cursor first = new Cursor(null, false, null);
+        if (!first.next()) {
+            return "The glossary is empty.";
+        }
+
+        return Glossary.formatEntries(first.word, first.wordEntries);
+    }
+
+    /**
+     * Gets all entries for the last word in the glossary
+     * @return -- all entries for the last word in the glossary
+     */
+    public String option5() {
+        String last = lastWord();
+        if (last == null) {
+            return "The glossary is empty.";
+        }
+
+        return Glossary.formatEntries(last, lookup(last));
+    }
+
+    /**
+     * Gets all unique parts of speech for a given word
+     * @param word -- the given word
+     * @return -- all parts of speech
+     */
+    public String option6(String word) {
+        SortedArrayList<Entry> wordEntries = lookup(word);
+
+        if (wordEntries == null) {
+            return word + " was not found in the glossary";
+        }
+
+        return Glossary.formatPartsOfSpeech(word, wordEntries);
+    }
+
+    /**
+     * Updates a definition for a given word, selecting from all definitions for the word
+     * @param word -- the word whose definition to update
+     * @param numToUpdate -- the number (essentially index) of the definition to update
+     * @param newDefinition -- the new definition
+     * @return -- output information after updating the definition
+     */
+    public String option7(String word, int numToUpdate, String newDefinition) {
+        SortedArrayList<Entry> wordEntries = lookup(word);
+        if (wordEntries == null) {
+            return word + " was not found in the glossary";
+        }
+
+        if (numToUpdate < 1 || numToUpdate > wordEntries.size()) {
+            return "Definition doesn't exist";
+        }
+
+        SortedArrayList<Entry> copy = new SortedArrayList<>(wordEntries);
+        Entry old = copy.remove(numToUpdate - 1);
+        copy.insert(new Entry(old.getPartOfSpeechCode(), newDefinition));
+        change(word, copy);
+
+        return "Definition updated";
+    }
+
+    /**
+     * Deletes a definition for a given word,
+     * selecting from all definitions for the word.
+     * If the deletion results in no definitions for
+     * a word, it is deleted from the glossary.
+     * @param word -- the word to delete a definition from
+     * @param numToRemove -- the "index" of the definition to remove
+     * @return -- log information after deleting the definition
+     */
+    public String option8(String word, int numToRemove) {
+        SortedArrayList<Entry> wordEntries = lookup(word);
+        if (wordEntries == null) {
+            return "Word doesn't exist";
+        }
+
+        if (numToRemove < 1 || numToRemove > wordEntries.size()) {
+            return "Definition doesn't exist";
+        }
+
+        SortedArrayList<Entry> copy = new SortedArrayList<>(wordEntries);
+        Entry removed = copy.remove(numToRemove - 1);
+
+        defCount--;
+        pos[removed.getPartOfSpeechCode().code()]--;
+
+        String returnString = "Definition removed";
+        if (copy.size() == 0) {
+            returnString += String.format("\n%s removed", word);
+            wordCount--;
+            change(word, null);
+        }
+        else {
+            change(word, copy);
+        }
+
+        return returnString + "\n" + option3(word, true);
+    }
+
+    /**
+     * Adds a new definition for a given word
+     * @param word -- the given word
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @return -- log information after adding the new Entry
+     */
+    public String option9(String word, String partOfSpeech, String definition) {
+        PartOfSpeech code = PartOfSpeech.fromLabel(partOfSpeech);
+        if (code == null) {
+            return partOfSpeech + " is not a valid part of speech";
+        }
+
+        SortedArrayList<Entry> wordEntries = lookup(word);
+        SortedArrayList<Entry> copy = wordEntries == null ? new SortedArrayList<>() : new SortedArrayList<>(wordEntries);
+        copy.insert(new Entry(code, definition));
+        if (wordEntries == null) {
+            wordCount++;
+        }
+        pos[code.code()]++;
+        defCount++;
+        change(word, copy);
+
+        return "Successfully added " + word;
+    }
+
+    /**
+     * Saves the glossary to a given file path, merging any pending changes first
+     * @param filename -- the file path and name of which is given by the user
+     * @return -- log information after saving the glossary
+     * @throws IOException -- if the glossary could not be written to the given file path
+     */
+    public String option10(String filename) throws IOException {
+        merge();
+
+        new GlossaryWriter().save(() -> new Iterator<Map.Entry<String, SortedArrayList<Entry>>>() {
+
+            private final Iterator<String> keys = words.iterator();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, SortedArrayList<Entry>> next() {
+                return new AbstractMap.SimpleImmutableEntry<>(keys.next(), entries[index++]);
+            }
+        }, Paths.get(filename));
+
+        return String.format("Successfully saved dictionary to %s", filename);
+    }
+
+    /**
+     * Folds the pending changes into a new packed layout
+     */
+    public void merge() {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        ArrayList<String> mergedWords = new ArrayList<>(wordCount);
+        ArrayList<SortedArrayList<Entry>> mergedEntries = new ArrayList<>(wordCount);
+        Cursor cursor = new Cursor(null, false, null);
+        while (cursor.next()) {
+            mergedWords.add(cursor.word);
+            mergedEntries.add(cursor.wordEntries);
+        }
+
+        changes.clear();
+        pack(mergedWords, mergedEntries);
+    }
+
+    /**
+     * Replaces the packed layout
+     * @param sortedWords -- the words, in sorted order
+     * @param wordEntries -- each word's entries, in the same order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void pack(Collection<String> sortedWords, Collection<SortedArrayList<Entry>> wordEntries) {
+        words = new FrontCodedKeys(sortedWords);
+        entries = wordEntries.toArray(new SortedArrayList[0]);
+    }
+
+    /**
+     * Finds the entries for a word, checking the pending changes before the packed words
+     * @param word -- the word to find
+     * @return -- the word's entries, or null if it is not in the glossary
+     */
+    private SortedArrayList<Entry> lookup(String word) {
+        if (!changes.isEmpty()) {
+            SortedArrayList<Entry> changed = changes.get(word);
+            if (changed != null || changes.containsKey(word)) {
+                return changed;
+            }
+        }
+
+        int index = words.indexOf(word);
+        return index >= 0 ? entries[index] : null;
+    }
+
+    /**
+     * Records a word's new entries, merging the pending changes once there are enough of them
+     * @param word -- the changed word
+     * @param wordEntries -- the word's new entries, or null if it was removed
+     */
+    private void change(String word, SortedArrayList<Entry> wordEntries) {
+        changes.put(word, wordEntries);
+
+        if (changes.size() >= Math.max(MIN_CHANGES_TO_MERGE, words.size() / 8)) {
+            merge();
+        }
+    }
+
+    /**
+     * Rejects a range whose starting word comes after its end word, as TreeMap.subMap does
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @throws IllegalArgumentException -- if the starting word comes after the end word
+     */
+    private static void checkRange(String start, String end) {
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+    }
+
+    /**
+     * Finds the last word in the glossary
+     * @return -- the last word, or null if the glossary is empty
+     */
+    private String lastWord() {
+        String lastChanged = null;
+        for (Map.Entry<String, SortedArrayList<Entry>> change : changes.descendingMap().entrySet()) {
+            if (change.getValue() != null) {
+                lastChanged = change.getKey();
+                break;
+            }
+        }
+
+        // Packed words that have pending changes are covered by the changes
+        String lastPacked = null;
+        for (int index = words.size() - 1; index >= 0; index--) {
+            String word = words.get(index);
+            if (!changes.containsKey(word)) {
+                lastPacked = word;
+                break;
+            }
+        }
+
+        if (lastChanged == null) {
+            return lastPacked;
+        }
+        if (lastPacked == null) {
+            return lastChanged;
+        }
+
+        return lastChanged.compareTo(lastPacked) > 0 ? lastChanged : lastPacked;
+    }
+
+    /**
+     * Walks the words of the glossary in sorted order, merging the packed words
+     * with the pending changes
+     */
+    private class Cursor {
+
+        private final String end;
+        private final Iterator<String> packed;
+        private final Iterator<Map.Entry<String, SortedArrayList<Entry>>> changed;
+        private int packedIndex;
+        private String nextPacked;
+        private Map.Entry<String, SortedArrayList<Entry>> nextChanged;
+
+        private String word;
+        private SortedArrayList<Entry> wordEntries;
+
+        /**
+         * Constructs a new Cursor positioned before the first word of a range
+         * @param start -- the first word of the range, or null to start at the beginning
+         * @param inclusive -- whether the range includes the starting word
+         * @param end -- the last word of the range, inclusive, or null to run to the end
+         */
+        private Cursor(String start, boolean inclusive, String end) {
+            this.end = end;
+
+            NavigableMap<String, SortedArrayList<Entry>> changedRange = changes;
+            if (start != null) {
+                packedIndex = words.ceilingIndex(start);
+                changedRange = changedRange.tailMap(start, inclusive);
+            }
+            this.packed = words.iterator(packedIndex);
+            this.changed = changedRange.entrySet().iterator();
+
+            nextPacked = packed.hasNext() ? packed.next() : null;
+            if (nextPacked != null && !inclusive && nextPacked.equals(start)) {
+                advancePacked();
+            }
+            nextChanged = changed.hasNext() ? changed.next() : null;
+        }
+
+        /**
+         * Moves to the next word in the range
+         * @return -- false if there are no more words in the range
+         */
+        private boolean next() {
+            while (nextPacked != null || nextChanged != null) {
+                int comparison;
+                if (nextPacked == null) {
+                    comparison = 1;
+                }
+                else if (nextChanged == null) {
+                    comparison = -1;
+                }
+                else {
+                    comparison = nextPacked.compareTo(nextChanged.getKey());
+                }
+
+                if (comparison < 0) {
+                    word = nextPacked;
+                    wordEntries = entries[packedIndex];
+                    advancePacked();
+                }
+                else {
+                    // A pending change replaces the packed word with the same key, if there is one
+                    if (comparison == 0) {
+                        advancePacked();
+                    }
+                    word = nextChanged.getKey();
+                    wordEntries = nextChanged.getValue();
+                    nextChanged = changed.hasNext() ? changed.next() : null;
+                    if (wordEntries == null) {
+                        continue;
+                    }
+                }
+
+                return end == null || word.compareTo(end) <= 0;
+            }
+
+            return false;
+        }
+
+        /**
+         * Moves past the current packed word
+         */
+        private void advancePacked() {
+            packedIndex++;
+            nextPacked = packed.hasNext() ? packed.next() : null;
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package comprehensive;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * This class represents a glossary that contains
@@ -16,14 +24,43 @@ public class Glossary {
     private TreeMap<String, SortedArrayList<Entry>> glossary;
     private int wordCount;
     private int defCount;
-    private HashMap<String, Integer> pos;
+    private int[] pos;
+    private TreeMap<String, List<Long>> malformedLineOffsets;
+    private PrefixTrie prefixIndex;
+    private DefinitionIndex definitionIndex;
+    private DefinitionArena definitionArena;
+    private MutationLog mutationLog;
+    private Path mutationLogBase;
+    private RenderCache renderCache;
+    private GlossaryMetrics metrics;
+
+    // Once the mutation log grows past this, it is folded back into its base file
+    private static final long COMPACTION_THRESHOLD = 64L << 20;
+
+    // Chunks smaller than this are not worth handing to another worker
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    // Off-heap definitions are compacted once garbage outweighs live text by this much
+    private static final long MIN_ARENA_GARBAGE_TO_COMPACT = 16L << 20;
+
+    // How far and how many "did you mean" suggestions reach for a word that was not found
+    private static final int SUGGESTION_DISTANCE = 2;
+    private static final int SUGGESTION_LIMIT = 5;
+
+    // How many hot words keep their option3 and option6 output rendered
+    private static final int RENDER_CACHE_SIZE = 1024;
+
+    // Glossaries with at least this many words are saved in parallel segments
+    private static final int MIN_WORDS_TO_SAVE_IN_PARALLEL = 1 << 16;
 
     /**
      * Constructs a new glossary
      */
     public Glossary() {
         this.glossary = new TreeMap<>();
-        this.pos = new HashMap<>();
+        this.pos = new int[PartOfSpeech.COUNT];
+        this.malformedLineOffsets = new TreeMap<>();
+        this.renderCache = new RenderCache(RENDER_CACHE_SIZE);
     }
 
     /**
@@ -35,67 +72,464 @@ public class Glossary {
     }
 
     /**
-     * Populates the glossary from a given file path
+     * Getter for the cache of rendered option3 and option6 output, whose
+     * hit and miss counts show how well it suits the lookups being made
+     * @return -- the render cache
+     */
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Starts recording the latency of populateGlossary, option1 through option10
+     * and SortedArrayList.insert, along with misses from options 3, 6, 7 and 8.
+     * Calling this again returns the metrics already being recorded.
+     * @return -- the metrics, which can be published with GlossaryMetrics.register
+     */
+    public GlossaryMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new GlossaryMetrics(this);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Getter for the metrics
+     * @return -- the metrics, or null if enableMetrics has not been called
+     */
+    public GlossaryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Getter for the number of words
+     * @return -- the number of words
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Getter for the number of definitions
+     * @return -- the number of definitions
+     */
+    public int getDefCount() {
+        return defCount;
+    }
+
+    /**
+     * Getter for the number of definitions with a given part of speech
+     * @param partOfSpeech -- the part of speech
+     * @return -- the number of definitions with that part of speech
+     */
+    public int getPartOfSpeechCount(PartOfSpeech partOfSpeech) {
+        return pos[partOfSpeech.code()];
+    }
+
+    /**
+     * Populates the glossary from a given file path.
+     * Lines that are missing a :: separator are skipped, and their byte
+     * offsets are available from getMalformedLineOffsets
      * @param filename -- the given file path
      * @throws IOException -- if the given file path is invalid
      */
     public void populateGlossary(String filename) throws IOException {
+        long startNanos = startTimer();
+        try {
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
 
-        BufferedReader fileReader = new BufferedReader(new FileReader(filename));
-        String nextLine;
+                long[] boundaries = findChunkBoundaries(channel, 1);
+                LineParser parser = new LineParser();
+                LoadResult result = new LoadResult(definitionArena);
 
-        while ((nextLine = fileReader.readLine()) != null) {
+                for (int i = 0; i < boundaries.length - 1; i++) {
+                    if (boundaries[i + 1] > boundaries[i]) {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i], boundaries[i + 1] - boundaries[i]);
+                        parser.parse(buffer, boundaries[i], result::add);
+                    }
+                }
 
-            // Parse the word from the input line
-            int indexOfColon = nextLine.indexOf(':');
-            String word = nextLine.substring(0, indexOfColon);
-            nextLine = nextLine.substring(indexOfColon + 2);
+                result.addMalformedOffsets(filename, parser.getMalformedOffsets());
+                absorb(result);
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.POPULATE, startNanos);
+        }
+    }
 
-            // Parse the part of speech from the input line
-            indexOfColon = nextLine.indexOf(':');
-            String partOfSpeech = nextLine.substring(0, indexOfColon);
+    /**
+     * Populates the glossary from several files at once, on the common fork-join pool.
+     * See populateGlossaryParallel(List, ForkJoinPool)
+     * @param filenames -- the given file paths
+     * @throws IOException -- if any of the given file paths is invalid
+     */
+    public void populateGlossaryParallel(List<String> filenames) throws IOException {
+        populateGlossaryParallel(filenames, ForkJoinPool.commonPool());
+    }
 
-            // Parse the definition from the input line
-            String definition = nextLine.substring(indexOfColon + 2);
+    /**
+     * Populates the glossary from several files at once. Each file is parsed by its
+     * own task on the given fork-join pool, and large files are further split into
+     * chunks, so the load takes about as long as the largest file rather than all of
+     * them together. A word that appears in more than one file gets the definitions
+     * from every file. If any file cannot be read, nothing is added to the glossary.
+     * The offsets of malformed lines are kept separately for each file, since each is
+     * relative to the file its line was in.
+     * @param filenames -- the given file paths
+     * @param pool -- the pool to parse the files on
+     * @throws IOException -- if any of the given file paths is invalid
+     */
+    public void populateGlossaryParallel(List<String> filenames, ForkJoinPool pool) throws IOException {
+        long startNanos = startTimer();
+        try {
+            if (filenames.isEmpty()) {
+                return;
+            }
 
-            // Add the word and new Entry as needed, while updating counters for number of words, etc.
-            Entry newEntry = new Entry(partOfSpeech, definition);
-            Integer count = pos.get(partOfSpeech);
-            pos.put(partOfSpeech, count != null ? count + 1 : 1);
-            SortedArrayList<Entry> entries = glossary.get(word);
+            LoadResult result;
+            try {
+                result = pool.invoke(new FileTask(filenames, 0, filenames.size(), pool.getParallelism(), definitionArena));
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            absorb(result);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.POPULATE, startNanos);
+        }
+    }
+
+    /**
+     * Adds everything parsed by a loader to the glossary. Each word's batch of
+     * entries is sorted once and merged into its SortedArrayList in a single pass,
+     * rather than inserting the entries one at a time.
+     * @param result -- the words, entries and counters that were parsed
+     */
+    private void absorb(LoadResult result) {
+        for (Map.Entry<String, ArrayList<Entry>> batch : result.words.entrySet()) {
+            SortedArrayList<Entry> entries = glossary.get(batch.getKey());
             if (entries == null) {
                 entries = new SortedArrayList<>();
-                glossary.put(word, entries);
+                glossary.put(batch.getKey(), entries);
                 wordCount++;
+                wordAdded(batch.getKey());
             }
-            entries.insert(newEntry);
+            entries.insertAll(batch.getValue());
+            renderCache.invalidate(batch.getKey());
 
-            defCount++;
+            if (definitionIndex != null) {
+                for (Entry entry : batch.getValue()) {
+                    definitionIndex.add(batch.getKey(), entry);
+                }
+            }
+        }
+
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] += result.pos[i];
+        }
+
+        defCount += result.defCount;
+
+        for (Map.Entry<String, ArrayList<Long>> file : result.malformedOffsets.entrySet()) {
+            List<Long> offsets = malformedLineOffsets.computeIfAbsent(file.getKey(), filename -> new ArrayList<>());
+            offsets.addAll(file.getValue());
+            Collections.sort(offsets);
         }
     }
 
     /**
-     * Gets the metadata for the glossary
-     * @return -- the metadata
+     * Adds words and their entries, parsed or gathered elsewhere, to the glossary.
+     * The entries themselves are added, not copies of them.
+     * @param words -- the words and their entries, which need not be sorted
      */
-    public String option1() {
+    void absorbEntries(Map<String, ? extends Collection<Entry>> words) {
+        for (Map.Entry<String, ? extends Collection<Entry>> batch : words.entrySet()) {
+            SortedArrayList<Entry> entries = glossary.get(batch.getKey());
+            if (entries == null) {
+                entries = new SortedArrayList<>();
+                glossary.put(batch.getKey(), entries);
+                wordCount++;
+                wordAdded(batch.getKey());
+            }
+            entries.insertAll(batch.getValue());
+            renderCache.invalidate(batch.getKey());
+
+            for (Entry entry : batch.getValue()) {
+                pos[entry.getPartOfSpeechCode().code()]++;
+                defCount++;
+                if (definitionIndex != null) {
+                    definitionIndex.add(batch.getKey(), entry);
+                }
+            }
+        }
+    }
 
-        String firstKey = " ";
-        String lastKey = " ";
-        double avg = 0;
+    /**
+     * Gets the byte offsets of the malformed lines skipped while populating the glossary from a file
+     * @param filename -- the file path, as it was given to populate the glossary
+     * @return -- the offsets of the file's skipped lines, in file order
+     */
+    public List<Long> getMalformedLineOffsets(String filename) {
+        return malformedLineOffsets.getOrDefault(filename, List.of());
+    }
+
+    /**
+     * Gets the byte offsets of the malformed lines skipped while populating the glossary,
+     * for every file that had any
+     * @return -- each file path mapped to the offsets of its skipped lines, in file order
+     */
+    public Map<String, List<Long>> getMalformedLineOffsetsByFile() {
+        return malformedLineOffsets;
+    }
+
+    /**
+     * Populates the glossary from a given file path by memory-mapping the file,
+     * splitting it into newline-aligned chunks and parsing the chunks in parallel
+     * on the common fork-join pool
+     * @param filename -- the given file path
+     * @throws IOException -- if the given file path is invalid
+     */
+    public void populateGlossaryParallel(String filename) throws IOException {
+        populateGlossaryParallel(filename, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Populates the glossary from a given file path by memory-mapping the file,
+     * splitting it into newline-aligned chunks and parsing the chunks in parallel
+     * on the given fork-join pool
+     * @param filename -- the given file path
+     * @param pool -- the pool to parse the chunks on
+     * @throws IOException -- if the given file path is invalid
+     */
+    public void populateGlossaryParallel(String filename, ForkJoinPool pool) throws IOException {
+        long startNanos = startTimer();
+        try {
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+
+                long[] boundaries = findChunkBoundaries(channel, pool.getParallelism());
+                LoadResult result;
+                try {
+                    result = pool.invoke(new ChunkTask(filename, channel, boundaries, 0, boundaries.length - 1, definitionArena));
+                }
+                catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
 
-        if (!glossary.isEmpty()) {
-            firstKey = glossary.firstKey();
-            lastKey = glossary.lastKey();
+                absorb(result);
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.POPULATE, startNanos);
         }
+    }
 
-        if (wordCount != 0) {
-            avg = ((double) defCount) / (wordCount);
+    /**
+     * Splits a file into roughly equal byte ranges, moving every boundary
+     * forward so that each range starts at the beginning of a line
+     * @param channel -- the channel of the file to split
+     * @param parallelism -- the number of workers that will parse the chunks
+     * @return -- the chunk boundaries, where chunk i spans [boundaries[i], boundaries[i + 1])
+     * @throws IOException -- if the file could not be read
+     */
+    static long[] findChunkBoundaries(FileChannel channel, int parallelism) throws IOException {
+        long fileSize = channel.size();
+
+        // A few chunks per worker keeps the pool busy when lines are unevenly distributed
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, fileSize / (parallelism * 4L) + 1);
+        chunkSize = Math.min(chunkSize, Integer.MAX_VALUE);
+
+        ArrayList<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+        while (position < fileSize) {
+
+            // Scan forward from the tentative boundary to just past the next newline
+            long lineStart = -1;
+            long scan = position;
+            while (lineStart < 0 && scan < fileSize) {
+                probe.clear();
+                int read = channel.read(probe, scan);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        lineStart = scan + i + 1;
+                        break;
+                    }
+                }
+                scan += read;
+            }
+
+            if (lineStart < 0 || lineStart >= fileSize) {
+                break;
+            }
+
+            boundaries.add(lineStart);
+            position = lineStart + chunkSize;
         }
 
-        return String.format("words - %d\ndefinitions - %d\ndefinitions per word - %.3f\nparts of speech - %d\nfirst word - %s\nlast word - %s",
-                wordCount, defCount, avg, pos.size(), firstKey, lastKey);
+        boundaries.add(fileSize);
+
+        long[] returnArray = new long[boundaries.size()];
+        for (int i = 0; i < returnArray.length; i++) {
+            returnArray[i] = boundaries.get(i);
+        }
+
+        return returnArray;
+    }
+
+    /**
+     * Parses one newline-aligned chunk of a memory-mapped glossary file
+     * @param filename -- the path of the file being loaded
+     * @param channel -- the channel of the file being loaded
+     * @param start -- the byte offset of the start of the chunk
+     * @param end -- the byte offset just past the end of the chunk
+     * @param arena -- the arena to store definitions in, or null to keep them on the heap
+     * @return -- the words, entries and counters parsed from the chunk
+     * @throws IOException -- if the chunk could not be mapped
+     */
+    private static LoadResult parseChunk(String filename, FileChannel channel, long start, long end, DefinitionArena arena) throws IOException {
+        LoadResult result = new LoadResult(arena);
+        if (end <= start) {
+            return result;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        LineParser parser = new LineParser();
+        parser.parse(buffer, start, result::add);
+        result.addMalformedOffsets(filename, parser.getMalformedOffsets());
+
+        return result;
+    }
+
+    /**
+     * Gets the first words in sorted order that start with a given prefix.
+     * The prefix index is built on the first call and kept up to date
+     * by later additions and removals.
+     * @param prefix -- the prefix typed so far
+     * @param limit -- the maximum number of words to return
+     * @return -- up to limit words starting with the prefix, in sorted order
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        return prefixIndex().complete(prefix, limit);
+    }
+
+    /**
+     * Gets the words in the glossary closest in spelling to a given word,
+     * using the same prefix index as autocomplete
+     * @param word -- the word to match, usually one that was not found
+     * @param maxDistance -- the largest edit distance to accept
+     * @param limit -- the maximum number of words to return
+     * @return -- up to limit words within maxDistance, closest first and then in sorted order
+     */
+    public List<String> suggest(String word, int maxDistance, int limit) {
+        return prefixIndex().nearest(word, maxDistance, limit);
+    }
+
+    /**
+     * Formats the suggestions to show when a word is not found
+     * @param word -- the word that was not found
+     * @return -- a "Did you mean" line, or an empty string if nothing is close
+     */
+    public String didYouMean(String word) {
+        List<String> suggestions = suggest(word, SUGGESTION_DISTANCE, SUGGESTION_LIMIT);
+        if (suggestions.isEmpty()) {
+            return "";
+        }
+
+        return "Did you mean: " + String.join(", ", suggestions) + "?";
+    }
+
+    /**
+     * Gets the prefix index, building it on the first call
+     * @return -- the prefix index over the words in the glossary
+     */
+    private PrefixTrie prefixIndex() {
+        if (prefixIndex == null) {
+            prefixIndex = new PrefixTrie();
+            for (String word : glossary.keySet()) {
+                prefixIndex.insert(word);
+            }
+        }
+
+        return prefixIndex;
+    }
+
+    /**
+     * Finds the entries whose definitions mention the words of a query.
+     * The definition index is built on the first call and kept up to date
+     * by later additions, updates and removals.
+     * @param query -- the words to search for
+     * @param matchAll -- true to require every word of the query, false to require any of them
+     * @return -- the matching entries, grouped by word in sorted order
+     */
+    public TreeMap<String, SortedArrayList<Entry>> searchDefinitions(String query, boolean matchAll) {
+        if (definitionIndex == null) {
+            definitionIndex = new DefinitionIndex();
+            for (Map.Entry<String, SortedArrayList<Entry>> word : glossary.entrySet()) {
+                for (Entry entry : word.getValue()) {
+                    definitionIndex.add(word.getKey(), entry);
+                }
+            }
+        }
+
+        return matchAll ? definitionIndex.matchAll(query) : definitionIndex.matchAny(query);
+    }
 
+    /**
+     * Updates the word indexes after a word is added to the glossary
+     * @param word -- the added word
+     */
+    private void wordAdded(String word) {
+        if (prefixIndex != null) {
+            prefixIndex.insert(word);
+        }
+    }
+
+    /**
+     * Updates the word indexes after a word is removed from the glossary
+     * @param word -- the removed word
+     */
+    private void wordRemoved(String word) {
+        if (prefixIndex != null) {
+            prefixIndex.remove(word);
+        }
+    }
+
+    /**
+     * Gets the metadata for the glossary
+     * @return -- the metadata
+     */
+    public String option1() {
+        long startNanos = startTimer();
+        try {
+            String firstKey = " ";
+            String lastKey = " ";
+
+            if (!glossary.isEmpty()) {
+                firstKey = glossary.firstKey();
+                lastKey = glossary.lastKey();
+            }
+
+            int partsOfSpeech = 0;
+            for (int count : pos) {
+                if (count != 0) {
+                    partsOfSpeech++;
+                }
+            }
+
+            return formatMetadata(wordCount, defCount, partsOfSpeech, firstKey, lastKey);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION1, startNanos);
+        }
     }
 
     /**
@@ -105,14 +539,89 @@ public class Glossary {
      * @return all words between the starting and end word
      */
     public String option2(String start, String end) {
-        StringBuilder returnString = new StringBuilder(String.format("The words between %s and %s are - ", start, end));
-        for (String key : glossary.subMap(start, true, end, true).keySet()) {
-            returnString.append(String.format("\n       %s", key));
+        StringBuilder returnString = new StringBuilder();
+        try {
+            option2(start, end, returnString);
+        }
+        catch (IOException e) {
+            // A StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
         }
 
         return returnString.toString();
     }
 
+    /**
+     * Writes all words between a given starting and end word to an output
+     * as they are found, rather than building the whole result first
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param out -- the output to write to
+     * @throws IOException -- if the output could not be written to
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  in which case nothing is written
+     */
+    public void option2(String start, String end, Appendable out) throws IOException {
+        long startNanos = startTimer();
+        try {
+            NavigableMap<String, SortedArrayList<Entry>> range = glossary.subMap(start, true, end, true);
+
+            out.append("The words between ").append(start).append(" and ").append(end).append(" are - ");
+            for (String key : range.keySet()) {
+                out.append("\n       ").append(key);
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION2, startNanos);
+        }
+    }
+
+    /**
+     * Gets one page of the words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param resumeToken -- the resume token from the previous page, or null for the first page
+     * @param pageSize -- the maximum number of words on the page
+     * @return -- the page of words, along with the token for the next page
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  or if the page size is not positive
+     */
+    public RangePage option2Page(String start, String end, String resumeToken, int pageSize) {
+        long startNanos = startTimer();
+        try {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("Page size must be positive");
+            }
+
+            NavigableMap<String, SortedArrayList<Entry>> range;
+            if (resumeToken == null || resumeToken.compareTo(start) < 0) {
+                range = glossary.subMap(start, true, end, true);
+            }
+            else if (resumeToken.compareTo(end) >= 0) {
+                return new RangePage(new ArrayList<>(), null);
+            }
+            else {
+                range = glossary.subMap(resumeToken, false, end, true);
+            }
+
+            ArrayList<String> words = new ArrayList<>(Math.min(pageSize, 1024));
+            Iterator<String> iterator = range.keySet().iterator();
+            while (words.size() < pageSize && iterator.hasNext()) {
+                words.add(iterator.next());
+            }
+
+            String nextToken = null;
+            if (iterator.hasNext() && !words.isEmpty()) {
+                nextToken = words.get(words.size() - 1);
+            }
+
+            return new RangePage(words, nextToken);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION2, startNanos);
+        }
+    }
+
     /**
      * Gets all entries for a given word.
      * This method is also used for option 7 (update)
@@ -123,31 +632,42 @@ public class Glossary {
      * @return -- all entries for a given word
      */
     public String option3(String word, boolean standalone) {
-        StringBuilder returnString = new StringBuilder(String.format("Definitions for %s", word));
-
+        long startNanos = startTimer();
         try {
-            int count = 1;
-
-            SortedArrayList<Entry> SortedArrayList = glossary.get(word);
-
-            if (SortedArrayList == null) {
+            String rendered = renderDefinitions(word, standalone);
+            if (rendered == null) {
+                countMiss(GlossaryMetrics.Operation.OPTION3);
                 return String.format("%s not found", word);
             }
 
-            for (Entry entry : SortedArrayList) {
-                returnString.append(String.format("\n     %d. %s.      %s", count, entry.getPartOfSpeech(), entry.getDefinition()));
-                count++;
-            }
+            return rendered;
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION3, startNanos);
+        }
+    }
 
-            if (!standalone) {
-                returnString.append(String.format("\n     %d. Back to main menu", count));
-            }
+    /**
+     * Gets the option3 output for a word from the render cache, rendering it if needed,
+     * without recording an option3 call
+     * @param word -- the word to find all entries for
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- all entries for the word, or null if the word is not in the glossary
+     */
+    private String renderDefinitions(String word, boolean standalone) {
+        SortedArrayList<Entry> entries = glossary.get(word);
+        if (entries == null) {
+            return null;
         }
-        catch (Exception ignored) {
 
+        int kind = standalone ? RenderCache.DEFINITIONS : RenderCache.DEFINITIONS_MENU;
+        String rendered = renderCache.get(word, kind);
+        if (rendered == null) {
+            rendered = formatDefinitions(word, entries, standalone);
+            renderCache.put(word, kind, rendered);
         }
 
-        return returnString.toString();
+        return rendered;
     }
 
     /**
@@ -155,17 +675,18 @@ public class Glossary {
      * @return -- all entries for the first word in the glossary
      */
     public String option4() {
-        if (glossary.isEmpty()) {
-            return "The glossary is empty.";
-        }
-        else {
-
-            StringBuilder returnString = new StringBuilder(glossary.firstKey());
-            for (Entry entry : glossary.firstEntry().getValue()) {
-                returnString.append(String.format("\n       %s.     %s", entry.getPartOfSpeech(), entry.getDefinition()));
+        long startNanos = startTimer();
+        try {
+            if (glossary.isEmpty()) {
+                return "The glossary is empty.";
             }
+            else {
 
-            return returnString.toString();
+                return formatEntries(glossary.firstKey(), glossary.firstEntry().getValue());
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION4, startNanos);
         }
     }
 
@@ -174,18 +695,18 @@ public class Glossary {
      * @return -- all entries for the last word in the glossary
      */
     public String option5() {
-
-        if (glossary.isEmpty()) {
-            return "The glossary is empty.";
-        }
-        else {
-
-            StringBuilder returnString = new StringBuilder(glossary.lastKey());
-            for (Entry entry : glossary.lastEntry().getValue()) {
-                returnString.append(String.format("\n       %s.     %s", entry.getPartOfSpeech(), entry.getDefinition()));
+        long startNanos = startTimer();
+        try {
+            if (glossary.isEmpty()) {
+                return "The glossary is empty.";
             }
+            else {
 
-            return returnString.toString();
+                return formatEntries(glossary.lastKey(), glossary.lastEntry().getValue());
+            }
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION5, startNanos);
         }
     }
 
@@ -195,44 +716,74 @@ public class Glossary {
      * @return -- all parts of speech
      */
     public String option6(String word) {
-        SortedArrayList<Entry> entries = glossary.get(word);
+        long startNanos = startTimer();
+        try {
+            SortedArrayList<Entry> entries = glossary.get(word);
 
-        if (entries == null) {
-            return word + " was not found in the glossary";
-        }
+            if (entries == null) {
+                countMiss(GlossaryMetrics.Operation.OPTION6);
+                return word + " was not found in the glossary";
+            }
 
-        SortedArrayList<String> partsOfSpeech = new SortedArrayList<>();
-        for (Entry entry : entries) {
-            partsOfSpeech.insert(entry.getPartOfSpeech());
-        }
+            String rendered = renderCache.get(word, RenderCache.PARTS_OF_SPEECH);
+            if (rendered == null) {
+                rendered = formatPartsOfSpeech(word, entries);
+                renderCache.put(word, RenderCache.PARTS_OF_SPEECH, rendered);
+            }
 
-        StringBuilder returnString = new StringBuilder(word);
-        for (String part : partsOfSpeech) {
-            returnString.append(String.format("\n       %s", part));
+            return rendered;
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION6, startNanos);
         }
-
-        return returnString.toString();
-
     }
 
     /**
      * Updates a definition for a given word, selecting from all definitions for the word
-     * @param entries -- all entries (containing the definitions) of a given word
+     * @param word -- the word whose definition to update
      * @param numToUpdate -- the number (essentially index) of the definition to update
      * @param newDefinition -- the new definition
      * @return -- output information after updating the definition
      */
-    public String option7(SortedArrayList<Entry> entries, int numToUpdate, String newDefinition) {
+    public String option7(String word, int numToUpdate, String newDefinition) {
+        long startNanos = startTimer();
+        try {
+            SortedArrayList<Entry> entries = glossary.get(word);
+            if (entries == null) {
+                countMiss(GlossaryMetrics.Operation.OPTION7);
+                return word + " was not found in the glossary";
+            }
 
-        Iterator<Entry> iterator = entries.iterator();
-        Entry entry = null;
-        for (int i = 0; i < numToUpdate; i++) {
-            entry = iterator.next();
-        }
+            if (numToUpdate < 1 || numToUpdate > entries.size()) {
+                countMiss(GlossaryMetrics.Operation.OPTION7);
+                return "Definition doesn't exist";
+            }
+
+            if (mutationLog != null) {
+                try {
+                    mutationLog.logUpdate(word, numToUpdate, newDefinition);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            Entry entry = entries.get(numToUpdate - 1);
+            entry.setDefinition(newDefinition);
+            renderCache.invalidate(word);
+            if (definitionIndex != null) {
+                definitionIndex.update(word, entry);
+            }
+
+            compactDefinitionsIfNeeded();
 
-        entry.setDefinition(newDefinition);
+            compactMutationLogIfNeeded();
 
-        return "Definition updated";
+            return "Definition updated";
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION7, startNanos);
+        }
     }
 
     /**
@@ -245,31 +796,60 @@ public class Glossary {
      * @return -- log information after deleting the definition
      */
     public String option8(String word, int numToRemove) {
+        long startNanos = startTimer();
+        try {
+            SortedArrayList<Entry> list = glossary.get(word);
+            if(list == null)
+            {
+                countMiss(GlossaryMetrics.Operation.OPTION8);
+                return "Word doesn't exist";
+            }
 
-    	SortedArrayList<Entry> list = glossary.get(word);
-        if(list == null)
-        {
-            return "Word doesn't exist";
-        }
-    	
-        Entry entry = list.remove(numToRemove - 1);
+            if(numToRemove < 1 || numToRemove > list.size())
+            {
+                countMiss(GlossaryMetrics.Operation.OPTION8);
+                return "Definition doesn't exist";
+            }
 
-        if(entry == null)
-        {
-            return "Definition doesn't exist";
-        }
-        
-        defCount--;
-        pos.put(entry.getPartOfSpeech(), pos.get(entry.getPartOfSpeech()) - 1);
+            if (mutationLog != null) {
+                try {
+                    mutationLog.logDelete(word, numToRemove);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
 
-        String returnString = "Definition removed";
-        if (list.size() == 0) {
-            returnString += String.format("\n%s removed", word);
-            glossary.remove(word);
-            wordCount --;
-        }
+            Entry entry = list.remove(numToRemove - 1);
+            renderCache.invalidate(word);
+
+            defCount--;
+            pos[entry.getPartOfSpeechCode().code()]--;
+            if (definitionIndex != null) {
+                definitionIndex.remove(entry);
+            }
+            if (entry instanceof ArenaEntry) {
+                ((ArenaEntry) entry).release();
+                compactDefinitionsIfNeeded();
+            }
+
+            String returnString = "Definition removed";
+            if (list.size() == 0) {
+                returnString += String.format("\n%s removed", word);
+                glossary.remove(word);
+                wordCount --;
+                wordRemoved(word);
+            }
 
-        return returnString + "\n" + option3(word, true);
+            compactMutationLogIfNeeded();
+
+            // The remaining definitions are rendered directly so they are not recorded as an option3 call
+            String remaining = renderDefinitions(word, true);
+            return returnString + "\n" + (remaining == null ? String.format("%s not found", word) : remaining);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION8, startNanos);
+        }
     }
 
     /**
@@ -280,51 +860,648 @@ public class Glossary {
      * @return -- log information after adding the new Entry
      */
     public String option9(String word, String partOfSpeech, String definition) {
-        SortedArrayList<Entry> entries = glossary.get(word);
-        if (entries == null) {
-            entries = new SortedArrayList<>();
-            glossary.put(word, entries);
-            wordCount ++;
-        }
+        long startNanos = startTimer();
+        try {
+            PartOfSpeech code = PartOfSpeech.fromLabel(partOfSpeech);
+            if (code == null) {
+                return partOfSpeech + " is not a valid part of speech";
+            }
+
+            if (mutationLog != null) {
+                try {
+                    mutationLog.logAdd(word, code, definition);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
 
-        entries.insert(new Entry(partOfSpeech, definition));
+            SortedArrayList<Entry> entries = glossary.get(word);
+            if (entries == null) {
+                entries = new SortedArrayList<>();
+                glossary.put(word, entries);
+                wordCount ++;
+                wordAdded(word);
+            }
+
+            Entry entry = newEntry(code, definition, definitionArena);
+            long insertNanos = startTimer();
+            entries.insert(entry);
+            stopTimer(GlossaryMetrics.Operation.INSERT, insertNanos);
+            renderCache.invalidate(word);
+            if (definitionIndex != null) {
+                definitionIndex.add(word, entry);
+            }
 
-        Integer count = pos.get(partOfSpeech);
-        pos.put(partOfSpeech, count != null ? count + 1 : 1);
-        defCount ++;
+            pos[code.code()]++;
+            defCount ++;
 
-        return "Successfully added " + word;
+            compactMutationLogIfNeeded();
 
+            return "Successfully added " + word;
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION9, startNanos);
+        }
     }
 
     /**
      * Saves the glossary (with any updates) to a given file path,
+     * replacing the file only once the whole glossary has been written.
+     * Large glossaries are rendered in parallel on the common fork-join pool
+     * when there is more than one processor to render them on.
      * @param filename -- the file path and name of which is given by the user
      * @return -- log information after saving the glossary
-     * @throws FileNotFoundException -- if the given file path and name does not exist
+     * @throws IOException -- if the glossary could not be written to the given file path
      */
-    public String option10(String filename) throws FileNotFoundException {
+    public String option10(String filename) throws IOException {
+        long startNanos = startTimer();
+        try {
+            Path target = Paths.get(filename);
+            if (glossary.size() >= MIN_WORDS_TO_SAVE_IN_PARALLEL && Runtime.getRuntime().availableProcessors() > 1) {
+                new GlossaryWriter().saveParallel(glossary, target, ForkJoinPool.commonPool());
+            }
+            else {
+                new GlossaryWriter().save(glossary, target);
+            }
 
-        PrintWriter writer = new PrintWriter(filename);
+            // Saving over the mutation log's base file folds every logged edit into it
+            if (mutationLog != null && target.toAbsolutePath().normalize().equals(mutationLogBase)) {
+                mutationLog.reset();
+            }
 
-        for (String word : glossary.keySet()) {
-            SortedArrayList<Entry> entries = glossary.get(word);
+            return String.format("Successfully saved dictionary to %s", filename);
+        }
+        finally {
+            stopTimer(GlossaryMetrics.Operation.OPTION10, startNanos);
+        }
+    }
+
+    /**
+     * Moves every definition out of its String and into an off-heap arena, and
+     * keeps definitions added or loaded later there too. Entries then hold only
+     * the location of their UTF-8 text, which is decoded whenever it is read.
+     * Calling this before populating the glossary avoids keeping two copies.
+     */
+    public void storeDefinitionsOffHeap() {
+        if (definitionArena != null) {
+            return;
+        }
+
+        definitionArena = new DefinitionArena();
+        for (Map.Entry<String, SortedArrayList<Entry>> word : glossary.entrySet()) {
+            ArrayList<Entry> moved = new ArrayList<>(word.getValue().size());
+            for (Entry entry : word.getValue()) {
+                moved.add(new ArenaEntry(entry.getPartOfSpeechCode(), entry.getDefinition(), definitionArena));
+            }
 
+            SortedArrayList<Entry> entries = new SortedArrayList<>();
+            entries.insertAll(moved);
+            word.setValue(entries);
+        }
+
+        // The definition index refers to the replaced entries
+        definitionIndex = null;
+    }
+
+    /**
+     * Gets the arena holding the glossary's definitions
+     * @return -- the arena, or null if definitions are kept on the heap
+     */
+    public DefinitionArena getDefinitionArena() {
+        return definitionArena;
+    }
+
+    /**
+     * Moves every off-heap definition into a fresh arena, leaving behind the
+     * garbage from updated and removed definitions. The old arena's direct
+     * memory is freed once it is garbage collected.
+     */
+    public void compactDefinitions() {
+        if (definitionArena == null) {
+            return;
+        }
+
+        DefinitionArena compacted = new DefinitionArena();
+        for (SortedArrayList<Entry> entries : glossary.values()) {
             for (Entry entry : entries) {
+                ((ArenaEntry) entry).moveTo(compacted);
+            }
+        }
+        definitionArena = compacted;
+    }
+
+    /**
+     * Compacts the off-heap definitions once their garbage outweighs the live text
+     */
+    private void compactDefinitionsIfNeeded() {
+        if (definitionArena != null
+                && definitionArena.getGarbageBytes() >= MIN_ARENA_GARBAGE_TO_COMPACT
+                && definitionArena.getGarbageBytes() > definitionArena.getLiveBytes()) {
+            compactDefinitions();
+        }
+    }
+
+    /**
+     * Creates an Entry, storing its definition in an arena if there is one
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @param arena -- the arena to store the definition in, or null to keep it on the heap
+     * @return -- the new Entry
+     */
+    private static Entry newEntry(PartOfSpeech partOfSpeech, String definition, DefinitionArena arena) {
+        if (arena == null) {
+            return new Entry(partOfSpeech, definition);
+        }
+
+        return new ArenaEntry(partOfSpeech, definition, arena);
+    }
+
+    /**
+     * Writes a binary snapshot of the glossary to a given file path,
+     * which loadSnapshot can read back much faster than populateGlossary
+     * @param filename -- the file path of the snapshot
+     * @throws IOException -- if the snapshot could not be written
+     */
+    public void saveSnapshot(String filename) throws IOException {
+        GlossarySnapshot.write(glossary, defCount, pos, Paths.get(filename));
+    }
+
+    /**
+     * Replaces the contents of the glossary with a binary snapshot
+     * written by saveSnapshot
+     * @param filename -- the file path of the snapshot
+     * @throws IOException -- if the file could not be read or is not a valid snapshot
+     */
+    public void loadSnapshot(String filename) throws IOException {
+        GlossarySnapshot snapshot = GlossarySnapshot.read(Paths.get(filename));
+
+        glossary = snapshot.getGlossary();
+        wordCount = snapshot.getWordCount();
+        defCount = snapshot.getDefCount();
+        pos = snapshot.getPos();
+        malformedLineOffsets.clear();
+
+        // Indexes and rendered text built over the old contents no longer apply
+        prefixIndex = null;
+        definitionIndex = null;
+        renderCache.clear();
+
+        if (definitionArena != null) {
+            definitionArena = null;
+            storeDefinitionsOffHeap();
+        }
+    }
+
+    /**
+     * Starts recording option7, option8 and option9 edits in a mutation log, so they
+     * survive a restart without saving the whole glossary. Any edits already in the
+     * log are replayed first, so this should be called right after the glossary is
+     * populated from its base file. If the log cannot be replayed, the glossary is
+     * reloaded from its base file, so it never holds only some of the logged edits.
+     * @param baseFilename -- the glossary file the log's edits apply on top of
+     * @param logFilename -- the mutation log file, which is created if it does not exist
+     * @return -- the number of edits replayed from the log
+     * @throws IOException -- if the log could not be opened or replayed
+     */
+    public int openMutationLog(String baseFilename, String logFilename) throws IOException {
+        closeMutationLog();
+
+        MutationLog log = new MutationLog(Paths.get(logFilename), Paths.get(baseFilename));
+        int replayed;
+
+        // Replayed edits are not calls made by the user, so recording is paused while they run
+        GlossaryMetrics recording = metrics;
+        metrics = null;
+        try {
+
+            // The log is not attached yet, so replaying through the options does not log the edits again
+            replayed = log.replay(new MutationLog.Replayer() {
+                @Override
+                public void update(String word, int numToUpdate, String newDefinition) {
+                    option7(word, numToUpdate, newDefinition);
+                }
+
+                @Override
+                public void delete(String word, int numToRemove) {
+                    option8(word, numToRemove);
+                }
+
+                @Override
+                public void add(String word, PartOfSpeech partOfSpeech, String definition) {
+                    option9(word, partOfSpeech.toString(), definition);
+                }
+            });
+        }
+        catch (IOException | RuntimeException e) {
+
+            // Drop the edits that were replayed before the failure
+            log.close();
+            reloadBase(baseFilename);
+            throw e;
+        }
+        finally {
+            metrics = recording;
+        }
+
+        mutationLog = log;
+        mutationLogBase = Paths.get(baseFilename).toAbsolutePath().normalize();
+        compactMutationLogIfNeeded();
+
+        return replayed;
+    }
+
+    /**
+     * Replaces the contents of the glossary with those of its base file,
+     * discarding any edits made since it was populated
+     * @param baseFilename -- the glossary file to reload
+     * @throws IOException -- if the file could not be read
+     */
+    private void reloadBase(String baseFilename) throws IOException {
+        glossary = new TreeMap<>();
+        wordCount = 0;
+        defCount = 0;
+        pos = new int[PartOfSpeech.COUNT];
+        malformedLineOffsets.clear();
+
+        // Indexes and rendered text built over the old contents no longer apply
+        prefixIndex = null;
+        definitionIndex = null;
+        renderCache.clear();
+
+        if (definitionArena != null) {
+            definitionArena = new DefinitionArena();
+        }
+        populateGlossary(baseFilename);
+    }
+
+    /**
+     * Folds every logged edit back into the mutation log's base file and empties the log
+     * @throws IOException -- if the base file could not be saved or the log could not be reset
+     */
+    public void compactMutationLog() throws IOException {
+        if (mutationLog == null) {
+            return;
+        }
+
+        new GlossaryWriter().save(glossary, mutationLogBase);
+        mutationLog.reset();
+    }
+
+    /**
+     * Sets whether edits wait for their mutation log record to reach the disk.
+     * Deferring suits scripted runs of many edits: an edit made since the last
+     * sync can be lost in a crash, but the edits are forced together by
+     * syncMutationLog or closeMutationLog instead of one at a time.
+     * @param defer -- true to defer syncing, false to sync every edit
+     * @throws IOException -- if deferred records could not be forced to disk
+     */
+    public void deferMutationLogSync(boolean defer) throws IOException {
+        if (mutationLog != null) {
+            mutationLog.setDeferSync(defer);
+        }
+    }
+
+    /**
+     * Forces every edit recorded in the mutation log so far to disk
+     * @throws IOException -- if the log could not be forced
+     */
+    public void syncMutationLog() throws IOException {
+        if (mutationLog != null) {
+            mutationLog.sync();
+        }
+    }
+
+    /**
+     * Stops recording edits and closes the mutation log, if one is open
+     * @throws IOException -- if the log could not be closed
+     */
+    public void closeMutationLog() throws IOException {
+        if (mutationLog != null) {
+            mutationLog.close();
+            mutationLog = null;
+            mutationLogBase = null;
+        }
+    }
+
+    /**
+     * Compacts the mutation log once it has grown past COMPACTION_THRESHOLD
+     */
+    private void compactMutationLogIfNeeded() {
+        try {
+            if (mutationLog != null && mutationLog.size() > COMPACTION_THRESHOLD) {
+                compactMutationLog();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the clock for the start of an instrumented call, if metrics are being recorded
+     * @return -- the current System.nanoTime, or 0 if metrics are not being recorded
+     */
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
 
-                if (!entry.equals(glossary.firstEntry().getValue().min())) {
-                    writer.print("\n");
+    /**
+     * Records the latency of an instrumented call, if metrics are being recorded
+     * @param operation -- the operation that was called
+     * @param startNanos -- the value startTimer returned when the call started
+     */
+    private void stopTimer(GlossaryMetrics.Operation operation, long startNanos) {
+        // A call that started before metrics were enabled has no start time to measure from
+        if (metrics != null && startNanos != 0) {
+            metrics.record(operation, startNanos);
+        }
+    }
+
+    /**
+     * Counts a call that did not find the word or definition it was given, if metrics are being recorded
+     * @param operation -- the operation that was called
+     */
+    private void countMiss(GlossaryMetrics.Operation operation) {
+        if (metrics != null) {
+            metrics.miss(operation);
+        }
+    }
+
+    /**
+     * Formats the metadata for a glossary, as shown by option 1
+     * @param wordCount -- the number of words
+     * @param defCount -- the number of definitions
+     * @param partsOfSpeech -- the number of parts of speech in use
+     * @param firstKey -- the first word
+     * @param lastKey -- the last word
+     * @return -- the formatted metadata
+     */
+    static String formatMetadata(int wordCount, int defCount, int partsOfSpeech, String firstKey, String lastKey) {
+        double avg = 0;
+
+        if (wordCount != 0) {
+            avg = ((double) defCount) / (wordCount);
+        }
+
+        return String.format("words - %d\ndefinitions - %d\ndefinitions per word - %.3f\nparts of speech - %d\nfirst word - %s\nlast word - %s",
+                wordCount, defCount, avg, partsOfSpeech, firstKey, lastKey);
+    }
+
+    /**
+     * Formats the numbered definitions of a word, as shown by option 3
+     * @param word -- the word
+     * @param entries -- the word's entries
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- the formatted definitions
+     */
+    static String formatDefinitions(String word, Iterable<Entry> entries, boolean standalone) {
+        StringBuilder returnString = new StringBuilder("Definitions for ").append(word);
+        int count = 1;
+
+        for (Entry entry : entries) {
+            returnString.append("\n     ").append(count).append(". ").append(entry.getPartOfSpeech())
+                    .append(".      ").append(entry.getDefinition());
+            count++;
+        }
+
+        if (!standalone) {
+            returnString.append("\n     ").append(count).append(". Back to main menu");
+        }
+
+        return returnString.toString();
+    }
+
+    /**
+     * Formats a word followed by its entries, as shown by options 4 and 5
+     * @param word -- the word
+     * @param entries -- the word's entries
+     * @return -- the formatted entries
+     */
+    static String formatEntries(String word, Iterable<Entry> entries) {
+        StringBuilder returnString = new StringBuilder(word);
+        for (Entry entry : entries) {
+            returnString.append(String.format("\n       %s.     %s", entry.getPartOfSpeech(), entry.getDefinition()));
+        }
+
+        return returnString.toString();
+    }
+
+    /**
+     * Formats the distinct parts of speech of a word, as shown by option 6
+     * @param word -- the word
+     * @param entries -- the word's entries
+     * @return -- the formatted parts of speech
+     */
+    static String formatPartsOfSpeech(String word, Iterable<Entry> entries) {
+        // Codes are in alphabetical order, so walking the set bits gives the parts of speech sorted
+        int partsOfSpeech = 0;
+        for (Entry entry : entries) {
+            partsOfSpeech |= 1 << entry.getPartOfSpeechCode().code();
+        }
+
+        StringBuilder returnString = new StringBuilder(word);
+        for (int code = 0; code < PartOfSpeech.COUNT; code++) {
+            if ((partsOfSpeech & (1 << code)) != 0) {
+                returnString.append("\n       ").append(PartOfSpeech.fromCode(code));
+            }
+        }
+
+        return returnString.toString();
+    }
+
+    /**
+     * The words, entries and counters parsed from one or more chunks of one or more glossary files
+     */
+    private static class LoadResult {
+
+        private final HashMap<String, ArrayList<Entry>> words = new HashMap<>();
+        private final int[] pos = new int[PartOfSpeech.COUNT];
+        private final HashMap<String, ArrayList<Long>> malformedOffsets = new HashMap<>();
+        private final DefinitionArena arena;
+        private int defCount;
+
+        /**
+         * Constructs a new, empty LoadResult
+         * @param arena -- the arena to store definitions in, or null to keep them on the heap
+         */
+        private LoadResult(DefinitionArena arena) {
+            this.arena = arena;
+        }
+
+        /**
+         * Adds a parsed line to this result
+         * @param word -- the parsed word
+         * @param partOfSpeech -- the parsed part of speech
+         * @param definition -- the parsed definition
+         */
+        private void add(String word, PartOfSpeech partOfSpeech, String definition) {
+            pos[partOfSpeech.code()]++;
+            ArrayList<Entry> entries = words.get(word);
+            if (entries == null) {
+                entries = new ArrayList<>(2);
+                words.put(word, entries);
+            }
+            entries.add(newEntry(partOfSpeech, definition, arena));
+
+            defCount++;
+        }
+
+        /**
+         * Records the offsets of malformed lines found in a file
+         * @param filename -- the path of the file the lines are in
+         * @param offsets -- the byte offsets of the lines within the file
+         */
+        private void addMalformedOffsets(String filename, List<Long> offsets) {
+            if (!offsets.isEmpty()) {
+                malformedOffsets.computeIfAbsent(filename, file -> new ArrayList<>()).addAll(offsets);
+            }
+        }
+
+        /**
+         * Folds another result into this one
+         * @param other -- the result to fold in
+         */
+        private void merge(LoadResult other) {
+            for (Map.Entry<String, ArrayList<Entry>> batch : other.words.entrySet()) {
+                ArrayList<Entry> entries = words.get(batch.getKey());
+                if (entries == null) {
+                    words.put(batch.getKey(), batch.getValue());
+                }
+                else {
+                    entries.addAll(batch.getValue());
                 }
+            }
 
-                writer.printf("%s::%s::%s", word, entry.getPartOfSpeech(), entry.getDefinition());
+            for (int i = 0; i < pos.length; i++) {
+                pos[i] += other.pos[i];
             }
 
+            defCount += other.defCount;
+            for (Map.Entry<String, ArrayList<Long>> file : other.malformedOffsets.entrySet()) {
+                addMalformedOffsets(file.getKey(), file.getValue());
+            }
         }
 
-        writer.close();
+        /**
+         * Folds two results together, merging the smaller map into the larger one
+         * to keep the number of moved entries down
+         * @param first -- one result
+         * @param second -- the other result
+         * @return -- whichever of the two now holds both
+         */
+        private static LoadResult combine(LoadResult first, LoadResult second) {
+            if (first.words.size() < second.words.size()) {
+                second.merge(first);
+                return second;
+            }
+            first.merge(second);
+            return first;
+        }
+    }
 
-        return String.format("Successfully saved dictionary to %s", filename);
+    /**
+     * Fork-join task that parses a range of chunks, splitting the range in half
+     * until a single chunk remains and merging the halves on the way back up
+     */
+    private static class ChunkTask extends RecursiveTask<LoadResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String filename;
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int low;
+        private final int high;
+        private final DefinitionArena arena;
+
+        /**
+         * Constructs a new ChunkTask over chunks [low, high)
+         * @param filename -- the path of the file being loaded
+         * @param channel -- the channel of the file being loaded
+         * @param boundaries -- the chunk boundaries of the file
+         * @param low -- the first chunk to parse
+         * @param high -- one past the last chunk to parse
+         * @param arena -- the arena to store definitions in, or null to keep them on the heap
+         */
+        private ChunkTask(String filename, FileChannel channel, long[] boundaries, int low, int high, DefinitionArena arena) {
+            this.filename = filename;
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.low = low;
+            this.high = high;
+            this.arena = arena;
+        }
 
+        @Override
+        protected LoadResult compute() {
+            if (high - low <= 1) {
+                try {
+                    return parseChunk(filename, channel, boundaries[low], boundaries[high], arena);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int mid = (low + high) >>> 1;
+            ChunkTask left = new ChunkTask(filename, channel, boundaries, low, mid, arena);
+            left.fork();
+            LoadResult right = new ChunkTask(filename, channel, boundaries, mid, high, arena).compute();
+            return LoadResult.combine(left.join(), right);
+        }
+    }
+
+    /**
+     * Fork-join task that parses a range of files, splitting the range in half
+     * until a single file remains, which is then parsed in chunks by a ChunkTask
+     */
+    private static class FileTask extends RecursiveTask<LoadResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> filenames;
+        private final int low;
+        private final int high;
+        private final int parallelism;
+        private final DefinitionArena arena;
+
+        /**
+         * Constructs a new FileTask over files [low, high)
+         * @param filenames -- the paths of the files being loaded
+         * @param low -- the first file to parse
+         * @param high -- one past the last file to parse
+         * @param parallelism -- the parallelism of the pool, which sets how finely each file is chunked
+         * @param arena -- the arena to store definitions in, or null to keep them on the heap
+         */
+        private FileTask(List<String> filenames, int low, int high, int parallelism, DefinitionArena arena) {
+            this.filenames = filenames;
+            this.low = low;
+            this.high = high;
+            this.parallelism = parallelism;
+            this.arena = arena;
+        }
+
+        @Override
+        protected LoadResult compute() {
+            if (high - low <= 1) {
+                try (FileChannel channel = FileChannel.open(Paths.get(filenames.get(low)), StandardOpenOption.READ)) {
+                    long[] boundaries = findChunkBoundaries(channel, parallelism);
+
+                    // The chunks run in this task's pool, and are all joined before the channel is closed
+                    return new ChunkTask(filenames.get(low), channel, boundaries, 0, boundaries.length - 1, arena).compute();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int mid = (low + high) >>> 1;
+            FileTask left = new FileTask(filenames, low, mid, parallelism, arena);
+            left.fork();
+            LoadResult right = new FileTask(filenames, mid, high, parallelism, arena).compute();
+            return LoadResult.combine(left.join(), right);
+        }
     }
 
 }
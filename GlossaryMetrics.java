@@ -0,0 +1,266 @@
+package comprehensive;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class holds the instrumentation for one Glossary or ConcurrentGlossary:
+ * a latency histogram and a miss counter for each instrumented operation, along
+ * with gauges that read the glossary's word, definition and part of speech counts.
+ * It can be registered as a platform MXBean, named comprehensive:type=Glossary,name=...
+ * <p>
+ * Each instrumented call costs two System.nanoTime calls and one histogram
+ * record, with no locks or allocation. Reading the statistics sums the
+ * histograms, so it is meant for occasional polling rather than hot paths.
+ * MetricsOverheadBenchmarks measures the cost against an uninstrumented glossary.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class GlossaryMetrics implements GlossaryMetricsMXBean {
+
+    /**
+     * The operations a Glossary records
+     */
+    public enum Operation {
+        POPULATE("populateGlossary"),
+        OPTION1("option1"),
+        OPTION2("option2"),
+        OPTION3("option3"),
+        OPTION4("option4"),
+        OPTION5("option5"),
+        OPTION6("option6"),
+        OPTION7("option7"),
+        OPTION8("option8"),
+        OPTION9("option9"),
+        OPTION10("option10"),
+        INSERT("SortedArrayList.insert");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final IntSupplier wordCount;
+    private final IntSupplier defCount;
+    private final ToIntFunction<PartOfSpeech> partOfSpeechCount;
+    private final LatencyHistogram[] latencies;
+    private final LongAdder[] misses;
+    private ObjectName registeredName;
+
+    /**
+     * Constructs a new GlossaryMetrics for a Glossary, with nothing recorded
+     * @param glossary -- the glossary whose counts the gauges read
+     */
+    GlossaryMetrics(Glossary glossary) {
+        this(glossary::getWordCount, glossary::getDefCount, glossary::getPartOfSpeechCount);
+    }
+
+    /**
+     * Constructs a new GlossaryMetrics for a ConcurrentGlossary, with nothing recorded
+     * @param glossary -- the glossary whose counts the gauges read
+     */
+    GlossaryMetrics(ConcurrentGlossary glossary) {
+        this(glossary::getWordCount, glossary::getDefCount, glossary::getPartOfSpeechCount);
+    }
+
+    /**
+     * Constructs a new GlossaryMetrics with nothing recorded
+     * @param wordCount -- reads the glossary's word count
+     * @param defCount -- reads the glossary's definition count
+     * @param partOfSpeechCount -- reads the glossary's count of definitions with a part of speech
+     */
+    private GlossaryMetrics(IntSupplier wordCount, IntSupplier defCount, ToIntFunction<PartOfSpeech> partOfSpeechCount) {
+        this.wordCount = wordCount;
+        this.defCount = defCount;
+        this.partOfSpeechCount = partOfSpeechCount;
+        this.latencies = new LatencyHistogram[OPERATIONS.length];
+        this.misses = new LongAdder[OPERATIONS.length];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            misses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one call of an operation
+     * @param operation -- the operation
+     * @param startNanos -- the System.nanoTime at which the call started
+     */
+    void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts a call of an operation that did not find what it was given
+     * @param operation -- the operation
+     */
+    void miss(Operation operation) {
+        misses[operation.ordinal()].increment();
+    }
+
+    /**
+     * Gets the latency histogram of an operation
+     * @param operation -- the operation
+     * @return -- its histogram
+     */
+    public LatencyHistogram getLatencies(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Gets the number of calls of an operation that did not find what they were given
+     * @param operation -- the operation
+     * @return -- the miss count
+     */
+    public long getMissCount(Operation operation) {
+        return misses[operation.ordinal()].sum();
+    }
+
+    @Override
+    public int getWordCount() {
+        return wordCount.getAsInt();
+    }
+
+    @Override
+    public int getDefCount() {
+        return defCount.getAsInt();
+    }
+
+    @Override
+    public Map<String, Integer> getPartOfSpeechCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+            counts.put(partOfSpeech.toString(), partOfSpeechCount.applyAsInt(partOfSpeech));
+        }
+
+        return counts;
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        Map<String, OperationStats> operations = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            operations.put(operation.toString(), new OperationStats(getLatencies(operation), getMissCount(operation)));
+        }
+
+        return operations;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i].reset();
+            misses[i].reset();
+        }
+    }
+
+    /**
+     * Publishes these metrics through the platform MBean server, replacing any
+     * metrics already registered under the same name
+     * @param name -- the name to register under, such as the glossary's file name
+     * @throws JMException -- if the name is not valid or the registration failed
+     */
+    public synchronized void register(String name) throws JMException {
+        unregister();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("comprehensive", "type", "Glossary");
+        objectName = new ObjectName(objectName.getCanonicalName() + ",name=" + ObjectName.quote(name));
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(this, objectName);
+        registeredName = objectName;
+    }
+
+    /**
+     * Stops publishing these metrics, if they were registered
+     * @throws JMException -- if the metrics could not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (registeredName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            registeredName = null;
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of one operation, published as a composite value
+     */
+    public static class OperationStats {
+
+        private final long count;
+        private final long misses;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        /**
+         * Constructs a new OperationStats
+         * @param latencies -- the operation's histogram
+         * @param misses -- the operation's miss count
+         */
+        private OperationStats(LatencyHistogram latencies, long misses) {
+            this.count = latencies.getCount();
+            this.misses = misses;
+            this.meanNanos = latencies.getMeanNanos();
+            this.p50Nanos = latencies.getPercentileNanos(0.50);
+            this.p90Nanos = latencies.getPercentileNanos(0.90);
+            this.p99Nanos = latencies.getPercentileNanos(0.99);
+            this.p999Nanos = latencies.getPercentileNanos(0.999);
+            this.maxNanos = latencies.getMaxNanos();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+}
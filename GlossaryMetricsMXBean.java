@@ -0,0 +1,42 @@
+package comprehensive;
+
+import java.util.Map;
+
+/**
+ * The management interface a GlossaryMetrics publishes through the platform
+ * MBean server, for viewing with jconsole or reading over local JMX.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public interface GlossaryMetricsMXBean {
+
+    /**
+     * Gets the number of words in the glossary
+     * @return -- the word count
+     */
+    int getWordCount();
+
+    /**
+     * Gets the number of definitions in the glossary
+     * @return -- the definition count
+     */
+    int getDefCount();
+
+    /**
+     * Gets the number of definitions with each part of speech
+     * @return -- the counts, keyed by part of speech
+     */
+    Map<String, Integer> getPartOfSpeechCounts();
+
+    /**
+     * Gets the call count, miss count and latency of every instrumented operation
+     * @return -- the statistics, keyed by operation name
+     */
+    Map<String, GlossaryMetrics.OperationStats> getOperations();
+
+    /**
+     * Clears every latency histogram and miss counter
+     */
+    void reset();
+}
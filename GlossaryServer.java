@@ -0,0 +1,519 @@
+package comprehensive;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class serves a ConcurrentGlossary over HTTP on the loopback address,
+ * so that other local processes can query and edit it without starting Main.
+ * Every response is compact JSON with a fixed Content-Length, and every
+ * request body is read to the end, so clients can keep one connection alive
+ * across many requests. Parameters are taken from the query string, or from
+ * a form-encoded body for POST requests.
+ *
+ * GET /metadata, /range (start, end, pageSize, resume), /definitions (word) and
+ * /parts-of-speech (word) answer option1, option2, option3 and option6.
+ * POST /update (word, number, definition), /delete (word, number) and
+ * /add (word, partOfSpeech, definition) run option7, option8 and option9.
+ *
+ * Each request runs on its own virtual thread when the JVM has them, and on
+ * its own thread from a cached pool otherwise. Responses are sent with
+ * TCP_NODELAY unless sun.net.httpserver.nodelay is set to false.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class GlossaryServer {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int BACKLOG = 1024;
+
+    static {
+        // The JDK server flushes the headers before the body, and with Nagle's algorithm the body then
+        // waits for the client's delayed ACK, adding about 40 ms to every response on a kept-alive connection.
+        // The setting is read once, when the first server is created, so it must be in place before that
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConcurrentGlossary glossary;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new GlossaryServer, which does not accept requests until it is started
+     * @param glossary -- the glossary to serve
+     * @param port -- the port to listen on, or 0 for any free port
+     * @throws IOException -- if the port could not be bound
+     */
+    public GlossaryServer(ConcurrentGlossary glossary, int port) throws IOException {
+        this.glossary = glossary;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = newRequestExecutor();
+
+        server.setExecutor(executor);
+        server.createContext("/metadata", get(this::metadata));
+        server.createContext("/range", get(this::range));
+        server.createContext("/definitions", get(this::definitions));
+        server.createContext("/parts-of-speech", get(this::partsOfSpeech));
+        server.createContext("/update", post(this::update));
+        server.createContext("/delete", post(this::delete));
+        server.createContext("/add", post(this::add));
+    }
+
+    /**
+     * Starts accepting requests in the background
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a given time for requests in progress, then shuts down
+     * @param delaySeconds -- the longest time to wait for requests in progress
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Getter for the port the server is listening on
+     * @return -- the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers GET /metadata with the statistics from option1
+     * @param params -- the request parameters, of which there are none
+     * @return -- the response
+     */
+    private Response metadata(Map<String, String> params) {
+        long startNanos = glossary.startTimer();
+        try {
+            int words = glossary.getWordCount();
+            int definitions = glossary.getDefCount();
+            int partsOfSpeech = 0;
+            for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+                if (glossary.getPartOfSpeechCount(partOfSpeech) != 0) {
+                    partsOfSpeech++;
+                }
+            }
+
+            StringBuilder json = new StringBuilder(128);
+            json.append("{\"words\":").append(words)
+                    .append(",\"definitions\":").append(definitions)
+                    .append(",\"definitionsPerWord\":").append(words == 0 ? 0.0 : (double) definitions / words)
+                    .append(",\"partsOfSpeech\":").append(partsOfSpeech)
+                    .append(",\"first\":");
+            appendString(json, glossary.getFirstWord());
+            json.append(",\"last\":");
+            appendString(json, glossary.getLastWord());
+
+            return Response.ok(json.append('}'));
+        }
+        finally {
+            glossary.stopTimer(GlossaryMetrics.Operation.OPTION1, startNanos);
+        }
+    }
+
+    /**
+     * Answers GET /range with one page of the words from option2
+     * @param params -- start, end, and optionally pageSize and the resume token from the previous page
+     * @return -- the response
+     */
+    private Response range(Map<String, String> params) {
+        String start = required(params, "start");
+        String end = required(params, "end");
+        int pageSize = Math.min(number(params, "pageSize", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("The starting word comes after the ending word");
+        }
+
+        RangePage page = glossary.option2Page(start, end, params.get("resume"), pageSize);
+
+        StringBuilder json = new StringBuilder(32 + 16 * page.getWords().size());
+        json.append("{\"words\":[");
+        for (int i = 0; i < page.getWords().size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendString(json, page.getWords().get(i));
+        }
+        json.append("],\"resume\":");
+        appendString(json, page.getResumeToken());
+
+        return Response.ok(json.append('}'));
+    }
+
+    /**
+     * Answers GET /definitions with a word's entries from option3
+     * @param params -- the word
+     * @return -- the response
+     */
+    private Response definitions(Map<String, String> params) {
+        long startNanos = glossary.startTimer();
+        try {
+            String word = required(params, "word");
+            SortedArrayList<Entry> entries = glossary.getEntries(word);
+            if (entries == null) {
+                glossary.countMiss(GlossaryMetrics.Operation.OPTION3);
+                return notFound(word + " not found");
+            }
+
+            StringBuilder json = new StringBuilder(64 + 64 * entries.size());
+            json.append("{\"word\":");
+            appendString(json, word);
+            json.append(",\"definitions\":[");
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                json.append(i > 0 ? ",{\"partOfSpeech\":" : "{\"partOfSpeech\":");
+                appendString(json, entry.getPartOfSpeech());
+                json.append(",\"definition\":");
+                appendString(json, entry.getDefinition());
+                json.append('}');
+            }
+
+            return Response.ok(json.append("]}"));
+        }
+        finally {
+            glossary.stopTimer(GlossaryMetrics.Operation.OPTION3, startNanos);
+        }
+    }
+
+    /**
+     * Answers GET /parts-of-speech with a word's parts of speech from option6
+     * @param params -- the word
+     * @return -- the response
+     */
+    private Response partsOfSpeech(Map<String, String> params) {
+        long startNanos = glossary.startTimer();
+        try {
+            String word = required(params, "word");
+            SortedArrayList<Entry> entries = glossary.getEntries(word);
+            if (entries == null) {
+                glossary.countMiss(GlossaryMetrics.Operation.OPTION6);
+                return notFound(word + " was not found in the glossary");
+            }
+
+            // Codes are in alphabetical order, so walking the set bits gives the parts of speech sorted
+            int codes = 0;
+            for (Entry entry : entries) {
+                codes |= 1 << entry.getPartOfSpeechCode().code();
+            }
+
+            StringBuilder json = new StringBuilder(64);
+            json.append("{\"word\":");
+            appendString(json, word);
+            json.append(",\"partsOfSpeech\":[");
+            boolean first = true;
+            for (int code = 0; code < PartOfSpeech.COUNT; code++) {
+                if ((codes & (1 << code)) != 0) {
+                    if (!first) {
+                        json.append(',');
+                    }
+                    appendString(json, PartOfSpeech.fromCode(code).toString());
+                    first = false;
+                }
+            }
+
+            return Response.ok(json.append("]}"));
+        }
+        finally {
+            glossary.stopTimer(GlossaryMetrics.Operation.OPTION6, startNanos);
+        }
+    }
+
+    /**
+     * Answers POST /update by running option7
+     * @param params -- the word, the number of the definition to update, and the new definition
+     * @return -- the response
+     */
+    private Response update(Map<String, String> params) {
+        String result = glossary.option7(required(params, "word"), number(params, "number", -1), required(params, "definition"));
+
+        return result(result.equals("Definition updated") ? 200 : 404, result);
+    }
+
+    /**
+     * Answers POST /delete by running option8
+     * @param params -- the word and the number of the definition to delete
+     * @return -- the response
+     */
+    private Response delete(Map<String, String> params) {
+        String result = glossary.option8(required(params, "word"), number(params, "number", -1));
+
+        return result(result.startsWith("Definition removed") ? 200 : 404, result);
+    }
+
+    /**
+     * Answers POST /add by running option9
+     * @param params -- the word, the part of speech, and the definition
+     * @return -- the response
+     */
+    private Response add(Map<String, String> params) {
+        String partOfSpeech = required(params, "partOfSpeech");
+        if (PartOfSpeech.fromLabel(partOfSpeech) == null) {
+            return error(400, partOfSpeech + " is not a valid part of speech");
+        }
+
+        return result(200, glossary.option9(required(params, "word"), partOfSpeech, required(params, "definition")));
+    }
+
+    /**
+     * Wraps an endpoint so that it only answers GET requests
+     * @param endpoint -- the endpoint
+     * @return -- the handler
+     */
+    private static HttpHandler get(Endpoint endpoint) {
+        return exchange -> handle(exchange, "GET", endpoint);
+    }
+
+    /**
+     * Wraps an endpoint so that it only answers POST requests
+     * @param endpoint -- the endpoint
+     * @return -- the handler
+     */
+    private static HttpHandler post(Endpoint endpoint) {
+        return exchange -> handle(exchange, "POST", endpoint);
+    }
+
+    /**
+     * Reads a request, runs its endpoint and writes the response
+     * @param exchange -- the request and response
+     * @param method -- the one method the endpoint accepts
+     * @param endpoint -- the endpoint
+     * @throws IOException -- if the request could not be read or the response could not be written
+     */
+    private static void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        Response response;
+        try (exchange) {
+            // The body must be drained for the connection to be reused
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                response = error(405, "Use " + method);
+            }
+            else {
+                try {
+                    Map<String, String> params = new HashMap<>();
+                    parseForm(exchange.getRequestURI().getRawQuery(), params);
+                    if (body.length > 0) {
+                        parseForm(new String(body, StandardCharsets.UTF_8), params);
+                    }
+                    response = endpoint.answer(params);
+                }
+                catch (IllegalArgumentException e) {
+                    // Also covers a missing parameter, a number that is not a number and a start after the end
+                    response = error(400, e.getMessage() == null ? "Invalid request" : e.getMessage());
+                }
+            }
+
+            byte[] bytes = response.json.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Adds the parameters in a form-encoded string, such as a query string, to a map
+     * @param form -- the encoded parameters, or null
+     * @param params -- the map to add to; later values replace earlier ones
+     */
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+
+        for (String pair : form.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Gets a parameter that must be present and not blank
+     * @param params -- the request parameters
+     * @param name -- the name of the parameter
+     * @return -- the trimmed value
+     * @throws IllegalArgumentException -- if the parameter is missing or blank
+     */
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+
+        return value.trim();
+    }
+
+    /**
+     * Gets a whole number parameter
+     * @param params -- the request parameters
+     * @param name -- the name of the parameter
+     * @param defaultValue -- the value to use if the parameter is missing
+     * @return -- the value
+     * @throws IllegalArgumentException -- if the parameter is not a whole number
+     */
+    private static int number(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + name);
+        }
+    }
+
+    /**
+     * Builds a response carrying the text an option returned
+     * @param status -- the HTTP status
+     * @param text -- the option's output
+     * @return -- the response
+     */
+    private static Response result(int status, String text) {
+        StringBuilder json = new StringBuilder(16 + text.length());
+        json.append("{\"result\":");
+        appendString(json, text);
+
+        return new Response(status, json.append('}'));
+    }
+
+    /**
+     * Builds a 404 response
+     * @param message -- what was not found
+     * @return -- the response
+     */
+    private static Response notFound(String message) {
+        return error(404, message);
+    }
+
+    /**
+     * Builds an error response
+     * @param status -- the HTTP status
+     * @param message -- the error message
+     * @return -- the response
+     */
+    private static Response error(int status, String message) {
+        StringBuilder json = new StringBuilder(16 + message.length());
+        json.append("{\"error\":");
+        appendString(json, message);
+
+        return new Response(status, json.append('}'));
+    }
+
+    /**
+     * Appends a string as a JSON string literal, or null
+     * @param json -- the JSON being built
+     * @param value -- the string, or null
+     */
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Creates an executor that runs each request on a new virtual thread, falling back
+     * to a cached thread pool on JVMs that do not have virtual threads
+     * @return -- the executor
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "glossary-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Answers a request from its parameters
+     */
+    private interface Endpoint {
+        Response answer(Map<String, String> params);
+    }
+
+    /**
+     * The status and JSON body of a response
+     */
+    private static class Response {
+        private final int status;
+        private final CharSequence json;
+
+        private Response(int status, CharSequence json) {
+            this.status = status;
+            this.json = json;
+        }
+
+        private static Response ok(CharSequence json) {
+            return new Response(200, json);
+        }
+    }
+}
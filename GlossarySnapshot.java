@@ -0,0 +1,437 @@
+package comprehensive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class reads and writes a compact binary snapshot of a glossary,
+ * which loads much faster than re-parsing the text format.
+ * All numbers are big-endian, and the file is laid out as
+ * <pre>
+ * header      magic, version, wordCount, defCount, number of parts of speech, count per part of speech
+ * key index   (wordCount + 1) int offsets into the key block, then wordCount long offsets into the definition block
+ * key block   the UTF-8 bytes of every word, in sorted order
+ * definitions for each word: int entry count, then per Entry a part of speech code, int length and UTF-8 bytes
+ * </pre>
+ * Words and their entries are written in sorted order, so loading never re-sorts anything.
+ * The text format stays the interchange format; a snapshot is only a fast restart path.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class GlossarySnapshot {
+
+    private static final long MAGIC = 0x474C4F5353415259L; // "GLOSSARY"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8 + 4 + 4 + 4 + 4 + 4 * PartOfSpeech.COUNT;
+
+    // Definitions are mapped a window at a time so snapshots larger than 2 GB can be read
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private TreeMap<String, SortedArrayList<Entry>> glossary;
+    private int wordCount;
+    private int defCount;
+    private int[] pos;
+
+    /**
+     * Constructs a GlossarySnapshot from loaded contents
+     * @param glossary -- the loaded words and entries
+     * @param wordCount -- the number of words
+     * @param defCount -- the number of definitions
+     * @param pos -- the number of definitions for each part of speech code
+     */
+    private GlossarySnapshot(TreeMap<String, SortedArrayList<Entry>> glossary, int wordCount, int defCount, int[] pos) {
+        this.glossary = glossary;
+        this.wordCount = wordCount;
+        this.defCount = defCount;
+        this.pos = pos;
+    }
+
+    /**
+     * Getter for the loaded words and entries
+     * @return -- the loaded words and entries
+     */
+    public TreeMap<String, SortedArrayList<Entry>> getGlossary() {
+        return glossary;
+    }
+
+    /**
+     * Getter for the number of words
+     * @return -- the number of words
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Getter for the number of definitions
+     * @return -- the number of definitions
+     */
+    public int getDefCount() {
+        return defCount;
+    }
+
+    /**
+     * Getter for the number of definitions for each part of speech
+     * @return -- the counts, indexed by part of speech code
+     */
+    public int[] getPos() {
+        return pos;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and renames it over the target
+     * @param glossary -- the words and entries to write
+     * @param defCount -- the number of definitions
+     * @param pos -- the number of definitions for each part of speech code
+     * @param target -- the snapshot file to write
+     * @throws IOException -- if the snapshot could not be written
+     */
+    public static void write(NavigableMap<String, SortedArrayList<Entry>> glossary, int defCount, int[] pos, Path target) throws IOException {
+        Path temp = GlossaryWriter.createTempFileFor(target);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 20))) {
+                out.writeLong(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(glossary.size());
+                out.writeInt(defCount);
+                out.writeInt(PartOfSpeech.COUNT);
+                for (int count : pos) {
+                    out.writeInt(count);
+                }
+
+                // The key index needs every offset up front, so measure the keys and definitions first
+                int keyOffset = 0;
+                for (String word : glossary.keySet()) {
+                    out.writeInt(keyOffset);
+                    keyOffset += utf8Length(word);
+                }
+                out.writeInt(keyOffset);
+
+                long defOffset = 0;
+                for (SortedArrayList<Entry> entries : glossary.values()) {
+                    out.writeLong(defOffset);
+                    defOffset += 4;
+                    for (Entry entry : entries) {
+                        defOffset += 1 + 4 + utf8Length(entry.getDefinition());
+                    }
+                }
+
+                for (String word : glossary.keySet()) {
+                    out.write(word.getBytes(StandardCharsets.UTF_8));
+                }
+
+                for (SortedArrayList<Entry> entries : glossary.values()) {
+                    out.writeInt(entries.size());
+                    for (Entry entry : entries) {
+                        byte[] definition = entry.getDefinition().getBytes(StandardCharsets.UTF_8);
+                        out.writeByte(entry.getPartOfSpeechCode().code());
+                        out.writeInt(definition.length);
+                        out.write(definition);
+                    }
+                }
+
+                // The snapshot must be on disk before it replaces the old one, or a crash could leave it truncated
+                out.flush();
+                channel.force(false);
+            }
+
+            GlossaryWriter.moveIntoPlace(temp, target);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a snapshot through a memory map
+     * @param source -- the snapshot file to read
+     * @return -- the loaded snapshot
+     * @throws IOException -- if the file could not be read or is not a valid snapshot
+     */
+    public static GlossarySnapshot read(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException(source + " is not a glossary snapshot");
+            }
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getLong() != MAGIC) {
+                throw new IOException(source + " is not a glossary snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(source + " has unsupported snapshot version " + version);
+            }
+
+            int wordCount = header.getInt();
+            int defCount = header.getInt();
+            if (header.getInt() != PartOfSpeech.COUNT) {
+                throw new IOException(source + " has a different set of parts of speech");
+            }
+            int[] pos = new int[PartOfSpeech.COUNT];
+            for (int i = 0; i < pos.length; i++) {
+                pos[i] = header.getInt();
+            }
+
+            // Map the key index and key block together, then decode every word
+            long indexSize = 4L * (wordCount + 1) + 8L * wordCount;
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexSize);
+            int keyBlockSize = index.getInt(4 * wordCount);
+            long keyBlockStart = HEADER_SIZE + indexSize;
+            long defBlockStart = keyBlockStart + keyBlockSize;
+            if (defBlockStart > fileSize) {
+                throw new IOException(source + " is truncated");
+            }
+
+            ByteBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, keyBlockStart, keyBlockSize);
+            byte[] scratch = new byte[256];
+
+            String[] words = new String[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                int start = index.getInt(4 * i);
+                int length = index.getInt(4 * (i + 1)) - start;
+                scratch = ensureCapacity(scratch, length);
+                keys.get(start, scratch, 0, length);
+                words[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            // Decode the definitions, remapping the window whenever a word's block falls outside it
+            int offsetsStart = 4 * (wordCount + 1);
+            ArrayList<SortedArrayList<Entry>> values = new ArrayList<>(wordCount);
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            long defBlockSize = fileSize - defBlockStart;
+
+            for (int i = 0; i < wordCount; i++) {
+                long start = index.getLong(offsetsStart + 8 * i);
+                long end = i + 1 < wordCount ? index.getLong(offsetsStart + 8 * (i + 1)) : defBlockSize;
+
+                if (window == null || start < windowStart || end > windowStart + window.capacity()) {
+                    long size = Math.min(Math.max(WINDOW_SIZE, end - start), defBlockSize - start);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, defBlockStart + start, size);
+                    windowStart = start;
+                }
+
+                int position = (int) (start - windowStart);
+                int entryCount = window.getInt(position);
+                position += 4;
+
+                SortedArrayList<Entry> entries = new SortedArrayList<>();
+                for (int j = 0; j < entryCount; j++) {
+                    PartOfSpeech partOfSpeech = PartOfSpeech.fromCode(window.get(position));
+                    int length = window.getInt(position + 1);
+                    position += 5;
+                    scratch = ensureCapacity(scratch, length);
+                    window.get(position, scratch, 0, length);
+                    position += length;
+
+                    // Entries were written in sorted order, so each one lands at the end of the list
+                    entries.insert(new Entry(partOfSpeech, new String(scratch, 0, length, StandardCharsets.UTF_8)));
+                }
+                values.add(entries);
+            }
+
+            return new GlossarySnapshot(new TreeMap<>(new SortedArrays<>(words, values)), wordCount, defCount, pos);
+        }
+    }
+
+    /**
+     * Counts the UTF-8 bytes needed to encode a String, without encoding it
+     * @param value -- the String to measure
+     * @return -- the number of UTF-8 bytes
+     */
+    static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                length += 1;
+            }
+            else if (!Character.isSurrogate(c)) {
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 2;
+                i++;
+            }
+
+            // A lone surrogate is encoded as a single '?' byte, which the base length already counts
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns a scratch array that can hold at least the given number of bytes
+     * @param scratch -- the current scratch array
+     * @param length -- the number of bytes needed
+     * @return -- the current array if it is big enough, otherwise a bigger one
+     */
+    private static byte[] ensureCapacity(byte[] scratch, int length) {
+        if (length <= scratch.length) {
+            return scratch;
+        }
+
+        return new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    /**
+     * A read-only SortedMap over a range of parallel sorted keys and values.
+     * TreeMap's SortedMap constructor builds its tree from one of these
+     * in linear time, without comparing any keys. Sub-maps are views over
+     * a narrower range, found by binary search; keys passed to them that
+     * lie outside their range are clamped to it rather than rejected.
+     * @param <V> the type of the values
+     */
+    private static class SortedArrays<V> extends AbstractMap<String, V> implements SortedMap<String, V> {
+
+        private final String[] keys;
+        private final List<V> values;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a new SortedArrays over all of the keys
+         * @param keys -- the keys, in sorted order
+         * @param values -- the value for each key
+         */
+        private SortedArrays(String[] keys, List<V> values) {
+            this(keys, values, 0, keys.length);
+        }
+
+        /**
+         * Constructs a new SortedArrays over the keys in [from, to)
+         * @param keys -- the keys, in sorted order
+         * @param values -- the value for each key
+         * @param from -- the index of the first key in the map
+         * @param to -- one past the index of the last key in the map
+         */
+        private SortedArrays(String[] keys, List<V> values, int from, int to) {
+            this.keys = keys;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Set<Map.Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, V>> iterator() {
+                    return new Iterator<>() {
+                        int index = from;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < to;
+                        }
+
+                        @Override
+                        public Map.Entry<String, V> next() {
+                            if (index >= to) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, V> next = new SimpleImmutableEntry<>(keys[index], values.get(index));
+                            index++;
+                            return next;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return to - from;
+                }
+            };
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = key instanceof String ? indexOf((String) key) : -1;
+            return index < 0 ? null : values.get(index);
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<String, V> subMap(String fromKey, String toKey) {
+            if (fromKey.compareTo(toKey) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return new SortedArrays<>(keys, values, lowerBound(fromKey), lowerBound(toKey));
+        }
+
+        @Override
+        public SortedMap<String, V> headMap(String toKey) {
+            return new SortedArrays<>(keys, values, from, lowerBound(toKey));
+        }
+
+        @Override
+        public SortedMap<String, V> tailMap(String fromKey) {
+            return new SortedArrays<>(keys, values, lowerBound(fromKey), to);
+        }
+
+        @Override
+        public String firstKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return keys[from];
+        }
+
+        @Override
+        public String lastKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return keys[to - 1];
+        }
+
+        /**
+         * Finds the index of the first key in this map's range that is not less than the given key
+         * @param key -- the key to search for
+         * @return -- the index, between from and to
+         */
+        private int lowerBound(String key) {
+            int index = Arrays.binarySearch(keys, from, to, key);
+            return index < 0 ? -(index + 1) : index;
+        }
+
+        /**
+         * Finds the index of a key in this map's range
+         * @param key -- the key to search for
+         * @return -- the index, or a negative number if the key is not in the map
+         */
+        private int indexOf(String key) {
+            return Arrays.binarySearch(keys, from, to, key);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package comprehensive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class saves a glossary in the word::pos::definition text format.
+ * Lines are encoded to UTF-8 straight into a large direct buffer that is
+ * drained through a FileChannel, so there is no per-line format parsing
+ * and no intermediate line Strings. The output goes to a temporary file
+ * in the target's directory, which is then renamed over the target, so a
+ * failed save never leaves a partially written glossary behind.
+ *
+ * saveParallel splits the words into contiguous segments, renders each
+ * segment into its own buffers on a fork-join pool, and writes the rendered
+ * segments to the file in order with gathering writes, so its output is
+ * byte-identical to save. Only a bounded number of segments are rendered
+ * ahead of the one being written, which keeps memory use flat for large glossaries.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class GlossaryWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Segments are rendered into heap buffers of this size, since they are short-lived
+    private static final int SEGMENT_BUFFER_SIZE = 1 << 18;
+
+    // Bounds on the number of words rendered by one parallel save task
+    private static final long MIN_SEGMENT_WORDS = 1 << 12;
+    private static final long MAX_SEGMENT_WORDS = 1 << 16;
+    private static final byte[] SEPARATOR = {':', ':'};
+    private static final byte[][] PART_OF_SPEECH_BYTES = new byte[PartOfSpeech.COUNT][];
+
+    static {
+        for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+            PART_OF_SPEECH_BYTES[partOfSpeech.code()] = partOfSpeech.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private ArrayList<ByteBuffer> rendered;
+    private boolean firstLine;
+
+    /**
+     * Constructs a new GlossaryWriter with its own direct buffer,
+     * which is reused by every save made through this writer
+     */
+    public GlossaryWriter() {
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new GlossaryWriter that renders lines into a list of
+     * buffers instead of writing them to a file, for one parallel save segment
+     * @param rendered -- the list the filled buffers are added to, ready to be written
+     */
+    private GlossaryWriter(ArrayList<ByteBuffer> rendered) {
+        this.buffer = ByteBuffer.allocate(SEGMENT_BUFFER_SIZE);
+        this.rendered = rendered;
+    }
+
+    /**
+     * Saves a glossary to the given file, replacing it if it exists.
+     * Lines are separated by a newline, with no newline after the last line.
+     * @param glossary -- the words and their entries, in the order they should be written
+     * @param target -- the file to save to
+     * @throws IOException -- if the file could not be written
+     */
+    public void save(NavigableMap<String, SortedArrayList<Entry>> glossary, Path target) throws IOException {
+        save(glossary.entrySet(), target);
+    }
+
+    /**
+     * Saves a sequence of words and their entries to the given file, replacing it if it exists.
+     * Lines are separated by a newline, with no newline after the last line.
+     * @param words -- the words and their entries, in the order they should be written
+     * @param target -- the file to save to
+     * @throws IOException -- if the file could not be written
+     */
+    public void save(Iterable<? extends Map.Entry<String, SortedArrayList<Entry>>> words, Path target) throws IOException {
+        Path temp = createTempFileFor(target);
+
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel = fileChannel;
+                buffer.clear();
+                firstLine = true;
+
+                for (Map.Entry<String, SortedArrayList<Entry>> mapEntry : words) {
+                    for (Entry entry : mapEntry.getValue()) {
+                        writeLine(mapEntry.getKey(), entry);
+                    }
+                }
+
+                flush();
+                fileChannel.force(false);
+            }
+            finally {
+                channel = null;
+            }
+
+            moveIntoPlace(temp, target);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a glossary to the given file, replacing it if it exists, rendering
+     * contiguous segments of the words in parallel on the given pool. The file
+     * is byte-identical to the one save writes.
+     * @param glossary -- the words and their entries, in the order they should be written
+     * @param target -- the file to save to
+     * @param pool -- the pool to render the segments on
+     * @throws IOException -- if the file could not be written
+     */
+    public void saveParallel(NavigableMap<String, SortedArrayList<Entry>> glossary, Path target, ForkJoinPool pool) throws IOException {
+        long segmentWords = glossary.size() / (pool.getParallelism() * 4L);
+        segmentWords = Math.max(MIN_SEGMENT_WORDS, Math.min(MAX_SEGMENT_WORDS, segmentWords));
+        ArrayList<Spliterator<Map.Entry<String, SortedArrayList<Entry>>>> segments = new ArrayList<>();
+        split(glossary.entrySet().spliterator(), segmentWords, segments);
+
+        Path temp = createTempFileFor(target);
+
+        ArrayDeque<Future<ArrayList<ByteBuffer>>> pending = new ArrayDeque<>();
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                int window = 2 * pool.getParallelism();
+                int next = 0;
+                boolean leadingNewline = true;
+
+                while (next < segments.size() || !pending.isEmpty()) {
+                    while (next < segments.size() && pending.size() < window) {
+                        Spliterator<Map.Entry<String, SortedArrayList<Entry>>> segment = segments.get(next++);
+                        pending.add(pool.submit(() -> render(segment)));
+                    }
+
+                    // Gather the oldest segment with any that have finished right behind it
+                    ArrayList<ByteBuffer> buffers = new ArrayList<>(await(pending.poll()));
+                    while (!pending.isEmpty() && pending.peek().isDone()) {
+                        buffers.addAll(await(pending.poll()));
+                    }
+
+                    // Every rendered line starts with a newline, but the file does not
+                    if (leadingNewline) {
+                        for (ByteBuffer rendered : buffers) {
+                            if (rendered.hasRemaining()) {
+                                rendered.position(rendered.position() + 1);
+                                leadingNewline = false;
+                                break;
+                            }
+                        }
+                    }
+
+                    ByteBuffer[] gathered = buffers.toArray(new ByteBuffer[0]);
+                    int offset = 0;
+                    while (offset < gathered.length) {
+                        fileChannel.write(gathered, offset, gathered.length - offset);
+                        while (offset < gathered.length && !gathered[offset].hasRemaining()) {
+                            offset++;
+                        }
+                    }
+                }
+
+                fileChannel.force(false);
+            }
+
+            moveIntoPlace(temp, target);
+        }
+        catch (IOException | RuntimeException e) {
+            for (Future<ArrayList<ByteBuffer>> future : pending) {
+                future.cancel(false);
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Splits a sequence of words into contiguous segments of at most about the given size, in order
+     * @param words -- the words to split
+     * @param maxWords -- the largest number of words a segment should hold
+     * @param segments -- the list the segments are added to
+     */
+    private static <T> void split(Spliterator<T> words, long maxWords, List<Spliterator<T>> segments) {
+        if (words.estimateSize() > maxWords) {
+            Spliterator<T> prefix = words.trySplit();
+            if (prefix != null) {
+                split(prefix, maxWords, segments);
+                split(words, maxWords, segments);
+                return;
+            }
+        }
+
+        segments.add(words);
+    }
+
+    /**
+     * Renders one segment of words, with a newline before every line
+     * @param segment -- the words and their entries
+     * @return -- the rendered lines, in buffers ready to be written
+     * @throws IOException -- never, since nothing is written to a file
+     */
+    private static ArrayList<ByteBuffer> render(Spliterator<Map.Entry<String, SortedArrayList<Entry>>> segment) throws IOException {
+        ArrayList<ByteBuffer> rendered = new ArrayList<>();
+        GlossaryWriter writer = new GlossaryWriter(rendered);
+
+        Iterator<Map.Entry<String, SortedArrayList<Entry>>> words = Spliterators.iterator(segment);
+        while (words.hasNext()) {
+            Map.Entry<String, SortedArrayList<Entry>> mapEntry = words.next();
+            for (Entry entry : mapEntry.getValue()) {
+                writer.writeLine(mapEntry.getKey(), entry);
+            }
+        }
+        writer.flush();
+
+        return rendered;
+    }
+
+    /**
+     * Waits for a segment to finish rendering
+     * @param future -- the rendering task
+     * @return -- the rendered segment
+     * @throws IOException -- if rendering failed
+     */
+    private static ArrayList<ByteBuffer> await(Future<ArrayList<ByteBuffer>> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Creates an empty temporary file in the target's directory to write a new version of
+     * the target into. Unlike Files.createTempFile, which makes the file readable only by
+     * its owner, the file gets the default permissions for new files, or the permissions
+     * of the target if it already exists, so replacing the target does not change them.
+     * @param target -- the file that will be replaced
+     * @return -- the temporary file
+     * @throws IOException -- if the file could not be created
+     */
+    static Path createTempFileFor(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp;
+        while (true) {
+            temp = directory.resolve(target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                Files.createFile(temp);
+                break;
+            }
+            catch (FileAlreadyExistsException e) {
+                // Another file already has this name, so try a different one
+            }
+        }
+
+        try {
+            PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+            PosixFileAttributeView tempView = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+            if (targetView != null && tempView != null && Files.exists(target)) {
+                tempView.setPermissions(targetView.readAttributes().permissions());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return temp;
+    }
+
+    /**
+     * Renames a finished temporary file over the target, atomically when the file system supports it
+     * @param temp -- the finished temporary file
+     * @param target -- the file to replace
+     * @throws IOException -- if the file could not be moved
+     */
+    static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes one word::pos::definition line, preceded by a newline unless it is the first line
+     * @param word -- the word
+     * @param entry -- the Entry holding the part of speech and definition
+     * @throws IOException -- if the buffer could not be drained
+     */
+    private void writeLine(String word, Entry entry) throws IOException {
+        if (!firstLine) {
+            putByte((byte) '\n');
+        }
+        firstLine = false;
+
+        putString(word);
+        putBytes(SEPARATOR);
+        putBytes(PART_OF_SPEECH_BYTES[entry.getPartOfSpeechCode().code()]);
+        putBytes(SEPARATOR);
+
+        // Off-heap definitions are already UTF-8, so they are copied without decoding
+        if (entry instanceof ArenaEntry) {
+            putBuffer(((ArenaEntry) entry).getDefinitionBytes());
+        }
+        else {
+            putString(entry.getDefinition());
+        }
+    }
+
+    /**
+     * Encodes a String into the buffer as UTF-8, copying ASCII characters directly
+     * @param value -- the String to encode
+     * @throws IOException -- if the buffer could not be drained
+     */
+    private void putString(String value) throws IOException {
+        int length = value.length();
+        if (buffer.remaining() < length) {
+            flush();
+        }
+
+        // ASCII is by far the common case, so only fall back to the full encoder when it is needed
+        if (length <= buffer.remaining()) {
+            int start = buffer.position();
+            int i = 0;
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buffer.put((byte) c);
+                i++;
+            }
+
+            if (i == length) {
+                return;
+            }
+            buffer.position(start);
+        }
+
+        putBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copies bytes into the buffer, draining it as often as needed
+     * @param bytes -- the bytes to copy
+     * @throws IOException -- if the buffer could not be drained
+     */
+    private void putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Copies the bytes remaining in another buffer into the buffer, draining it as often as needed
+     * @param bytes -- the buffer to copy from
+     * @throws IOException -- if the buffer could not be drained
+     */
+    private void putBuffer(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(bytes.remaining(), buffer.remaining());
+            buffer.put(buffer.position(), bytes, bytes.position(), length);
+            buffer.position(buffer.position() + length);
+            bytes.position(bytes.position() + length);
+        }
+    }
+
+    /**
+     * Copies one byte into the buffer, draining it first if it is full
+     * @param b -- the byte to copy
+     * @throws IOException -- if the buffer could not be drained
+     */
+    private void putByte(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    /**
+     * Writes everything in the buffer to the file and empties the buffer.
+     * When rendering a segment, the full buffer is kept instead and a new one started.
+     * @throws IOException -- if the file could not be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        if (rendered != null) {
+            if (buffer.hasRemaining()) {
+                rendered.add(buffer);
+                buffer = ByteBuffer.allocate(SEGMENT_BUFFER_SIZE);
+            }
+            else {
+                buffer.clear();
+            }
+            return;
+        }
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package comprehensive;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records latencies into a fixed set of log-linear buckets, in the
+ * style of an HDR histogram. Every power of two is split into SUB_BUCKETS
+ * equal buckets, so any recorded value is known to within about 6% while the
+ * whole range of a long fits in under a thousand counters. Recording is a
+ * couple of bit operations and atomic increments, with no locks and no
+ * allocation, so it can be called from many threads on hot paths.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalNanos;
+
+    /**
+     * Constructs a new, empty LatencyHistogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalNanos = new LongAdder();
+    }
+
+    /**
+     * Records one latency
+     * @param nanos -- the latency in nanoseconds; negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.add(value);
+    }
+
+    /**
+     * Gets the number of latencies recorded
+     * @return -- the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the mean of the latencies recorded
+     * @return -- the mean in nanoseconds, or 0 if nothing has been recorded
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count;
+    }
+
+    /**
+     * Gets the latency at a given percentile. The result is the upper end of the
+     * bucket the percentile falls in, so it never understates the true value.
+     * @param fraction -- the percentile as a fraction, such as 0.99
+     * @return -- the latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getPercentileNanos(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+
+        return bucketUpperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Gets the largest latency recorded, to within the width of its bucket
+     * @return -- the upper end of the highest bucket in use, or 0 if nothing has been recorded
+     */
+    public long getMaxNanos() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return bucketUpperBound(i);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Empties the histogram. Latencies recorded while it is being reset may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.reset();
+    }
+
+    /**
+     * Finds the bucket a value falls in. Values below SUB_BUCKETS get a bucket each;
+     * above that, the position of the highest bit picks the power of two and the
+     * next SUB_BUCKET_BITS bits pick the bucket within it.
+     * @param value -- the non-negative value
+     * @return -- the index of its bucket
+     */
+    private static int bucketIndex(long value) {
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        if (highestBit < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Gets the largest value that falls in a bucket
+     * @param index -- the index of the bucket
+     * @return -- the upper end of the bucket
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,538 @@
+package comprehensive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class represents a glossary that starts up from only its key index. Populating
+ * it memory-maps the file and makes one pass that records the byte offset of each
+ * word's lines, without decoding any definitions or creating any Entry, so startup
+ * time and heap use depend on the number of words rather than the size of their
+ * definitions. The metadata, ranges, and first and last words are answered from the
+ * index alone. A word's SortedArrayList of entries is decoded from the file the first
+ * time option3, 4, 5, 6, 7 or 8 needs it, and kept in a bounded least-recently-used
+ * cache so cold words are decoded again rather than held forever. Words changed by
+ * options 7, 8 and 9 no longer match the file, so their entries stay in memory.
+ * Output matches Glossary.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class LazyGlossary {
+
+    // How many words keep their decoded entries by default
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final long[] NO_LINES = new long[0];
+
+    private final TreeMap<String, long[]> index;
+    private final HashMap<String, SortedArrayList<Entry>> edited;
+    private final LinkedHashMap<String, SortedArrayList<Entry>> decoded;
+    private final int cacheSize;
+    private final LineParser parser;
+    private MappedByteBuffer[] segments;
+    private long[] segmentStarts;
+    private int defCount;
+    private int[] pos;
+    private List<Long> malformedLineOffsets;
+    private long decodeCount;
+
+    /**
+     * Constructs a new, empty LazyGlossary with the default cache size
+     */
+    public LazyGlossary() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a new, empty LazyGlossary
+     * @param cacheSize -- the largest number of unedited words to keep decoded entries for
+     */
+    public LazyGlossary(int cacheSize) {
+        this.index = new TreeMap<>();
+        this.edited = new HashMap<>();
+        this.cacheSize = cacheSize;
+        this.parser = new LineParser();
+        this.pos = new int[PartOfSpeech.COUNT];
+        this.malformedLineOffsets = new ArrayList<>();
+        this.segments = new MappedByteBuffer[0];
+        this.segmentStarts = new long[0];
+
+        // Access order moves a word to the back on every get, so the eldest is the least recently used
+        this.decoded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SortedArrayList<Entry>> eldest) {
+                return size() > LazyGlossary.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Indexes the glossary from a given file path. Only each line's word, part of
+     * speech and byte offset are read; definitions are decoded when first needed.
+     * The file is kept mapped, so it should not be changed in place while the
+     * glossary is in use. Lines that are missing a :: separator are skipped, and
+     * their byte offsets are available from getMalformedLineOffsets
+     * @param filename -- the given file path
+     * @throws IOException -- if the given file path is invalid
+     * @throws IllegalStateException -- if the glossary has already been populated
+     */
+    public void populateGlossary(String filename) throws IOException {
+        if (segments.length != 0 || !index.isEmpty()) {
+            throw new IllegalStateException("A LazyGlossary can only be populated once");
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+
+            // Mapped buffers stay valid after the channel is closed
+            long[] boundaries = Glossary.findChunkBoundaries(channel, 1);
+            ArrayList<MappedByteBuffer> mapped = new ArrayList<>();
+            ArrayList<Long> starts = new ArrayList<>();
+            HashMap<String, LineList> lines = new HashMap<>();
+
+            for (int i = 0; i < boundaries.length - 1; i++) {
+
+                // Empty segments are left out so every offset falls in exactly one segment
+                if (boundaries[i + 1] == boundaries[i]) {
+                    continue;
+                }
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i], boundaries[i + 1] - boundaries[i]);
+                mapped.add(segment);
+                starts.add(boundaries[i]);
+                parser.parseKeys(segment, boundaries[i], (word, partOfSpeech, lineOffset) -> {
+                    LineList wordLines = lines.get(word);
+                    if (wordLines == null) {
+                        wordLines = new LineList();
+                        lines.put(word, wordLines);
+                    }
+                    wordLines.add(lineOffset);
+                    pos[partOfSpeech.code()]++;
+                    defCount++;
+                });
+            }
+
+            for (Map.Entry<String, LineList> word : lines.entrySet()) {
+                index.put(word.getKey(), word.getValue().toArray());
+            }
+
+            segments = mapped.toArray(new MappedByteBuffer[0]);
+            segmentStarts = new long[starts.size()];
+            for (int i = 0; i < segmentStarts.length; i++) {
+                segmentStarts[i] = starts.get(i);
+            }
+            malformedLineOffsets = new ArrayList<>(parser.getMalformedOffsets());
+        }
+    }
+
+    /**
+     * Gets the byte offsets of every line that was skipped because it was
+     * missing a :: separator or had an unknown part of speech
+     * @return -- the offsets of the skipped lines, in file order
+     */
+    public List<Long> getMalformedLineOffsets() {
+        return malformedLineOffsets;
+    }
+
+    /**
+     * Getter for the number of words
+     * @return -- the number of words
+     */
+    public int getWordCount() {
+        return index.size();
+    }
+
+    /**
+     * Getter for the number of definitions
+     * @return -- the number of definitions
+     */
+    public int getDefCount() {
+        return defCount;
+    }
+
+    /**
+     * Gets the number of words whose entries are currently decoded, whether cached or edited
+     * @return -- the number of decoded words
+     */
+    public int getDecodedWordCount() {
+        return decoded.size() + edited.size();
+    }
+
+    /**
+     * Gets the number of times a word's entries have been decoded from the file, including
+     * while saving. Lookups alone push it past the number of distinct words looked up
+     * only once the cache is too small for them
+     * @return -- the number of decodes
+     */
+    public long getDecodeCount() {
+        return decodeCount;
+    }
+
+    /**
+     * Gets the metadata for the glossary
+     * @return -- the metadata
+     */
+    public String option1() {
+        String firstKey = " ";
+        String lastKey = " ";
+
+        if (!index.isEmpty()) {
+            firstKey = index.firstKey();
+            lastKey = index.lastKey();
+        }
+
+        int partsOfSpeech = 0;
+        for (int count : pos) {
+            if (count != 0) {
+                partsOfSpeech++;
+            }
+        }
+
+        return Glossary.formatMetadata(index.size(), defCount, partsOfSpeech, firstKey, lastKey);
+    }
+
+    /**
+     * Gets all words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @return all words between the starting and end word
+     * @throws IllegalArgumentException -- if the starting word comes after the end word
+     */
+    public String option2(String start, String end) {
+        NavigableMap<String, long[]> range = index.subMap(start, true, end, true);
+
+        StringBuilder returnString = new StringBuilder();
+        returnString.append("The words between ").append(start).append(" and ").append(end).append(" are - ");
+        for (String key : range.keySet()) {
+            returnString.append("\n       ").append(key);
+        }
+
+        return returnString.toString();
+    }
+
+    /**
+     * Gets one page of the words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param resumeToken -- the resume token from the previous page, or null for the first page
+     * @param pageSize -- the maximum number of words on the page
+     * @return -- the page of words, along with the token for the next page
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  or if the page size is not positive
+     */
+    public RangePage option2Page(String start, String end, String resumeToken, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        NavigableMap<String, long[]> range;
+        if (resumeToken == null || resumeToken.compareTo(start) < 0) {
+            range = index.subMap(start, true, end, true);
+        }
+        else if (resumeToken.compareTo(end) >= 0) {
+            return new RangePage(new ArrayList<>(), null);
+        }
+        else {
+            range = index.subMap(resumeToken, false, end, true);
+        }
+
+        ArrayList<String> words = new ArrayList<>(Math.min(pageSize, 1024));
+        Iterator<String> iterator = range.keySet().iterator();
+        while (words.size() < pageSize && iterator.hasNext()) {
+            words.add(iterator.next());
+        }
+
+        String nextToken = null;
+        if (iterator.hasNext() && !words.isEmpty()) {
+            nextToken = words.get(words.size() - 1);
+        }
+
+        return new RangePage(words, nextToken);
+    }
+
+    /**
+     * Determines whether a word is in the glossary, without decoding its entries
+     * @param word -- the word
+     * @return -- true if the word has at least one definition, otherwise false
+     */
+    public boolean contains(String word) {
+        return index.containsKey(word);
+    }
+
+    /**
+     * Gets all entries for a given word
+     * @param word -- the word to find all entries for
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- all entries for a given word
+     */
+    public String option3(String word, boolean standalone) {
+        SortedArrayList<Entry> entries = entries(word);
+
+        if (entries == null) {
+            return String.format("%s not found", word);
+        }
+
+        return Glossary.formatDefinitions(word, entries, standalone);
+    }
+
+    /**
+     * Gets all entries for the first word in the glossary
+     * @return -- all entries for the first word in the glossary
+     */
+    public String option4() {
+        if (index.isEmpty()) {
+            return "The glossary is empty.";
+        }
+
+        String first = index.firstKey();
+        return Glossary.formatEntries(first, entries(first));
+    }
+
+    /**
+     * Gets all entries for the last word in the glossary
+     * @return -- all entries for the last word in the glossary
+     */
+    public String option5() {
+        if (index.isEmpty()) {
+            return "The glossary is empty.";
+        }
+
+        String last = index.lastKey();
+        return Glossary.formatEntries(last, entries(last));
+    }
+
+    /**
+     * Gets all unique parts of speech for a given word
+     * @param word -- the given word
+     * @return -- all parts of speech
+     */
+    public String option6(String word) {
+        SortedArrayList<Entry> entries = entries(word);
+
+        if (entries == null) {
+            return word + " was not found in the glossary";
+        }
+
+        return Glossary.formatPartsOfSpeech(word, entries);
+    }
+
+    /**
+     * Updates a definition for a given word, selecting from all definitions for the word
+     * @param word -- the word whose definition to update
+     * @param numToUpdate -- the number (essentially index) of the definition to update
+     * @param newDefinition -- the new definition
+     * @return -- output information after updating the definition
+     */
+    public String option7(String word, int numToUpdate, String newDefinition) {
+        SortedArrayList<Entry> entries = entriesToEdit(word);
+        if (entries == null) {
+            return word + " was not found in the glossary";
+        }
+
+        if (numToUpdate < 1 || numToUpdate > entries.size()) {
+            return "Definition doesn't exist";
+        }
+
+        entries.get(numToUpdate - 1).setDefinition(newDefinition);
+
+        return "Definition updated";
+    }
+
+    /**
+     * Deletes a definition for a given word,
+     * selecting from all definitions for the word.
+     * If the deletion results in no definitions for
+     * a word, it is deleted from the glossary.
+     * @param word -- the word to delete a definition from
+     * @param numToRemove -- the "index" of the definition to remove
+     * @return -- log information after deleting the definition
+     */
+    public String option8(String word, int numToRemove) {
+        SortedArrayList<Entry> entries = entriesToEdit(word);
+        if (entries == null) {
+            return "Word doesn't exist";
+        }
+
+        if (numToRemove < 1 || numToRemove > entries.size()) {
+            return "Definition doesn't exist";
+        }
+
+        Entry entry = entries.remove(numToRemove - 1);
+        defCount--;
+        pos[entry.getPartOfSpeechCode().code()]--;
+
+        String returnString = "Definition removed";
+        if (entries.size() == 0) {
+            returnString += String.format("\n%s removed", word);
+            index.remove(word);
+            edited.remove(word);
+        }
+
+        return returnString + "\n" + option3(word, true);
+    }
+
+    /**
+     * Adds a new definition for a given word
+     * @param word -- the given word
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @return -- log information after adding the new Entry
+     */
+    public String option9(String word, String partOfSpeech, String definition) {
+        PartOfSpeech code = PartOfSpeech.fromLabel(partOfSpeech);
+        if (code == null) {
+            return partOfSpeech + " is not a valid part of speech";
+        }
+
+        SortedArrayList<Entry> entries = entriesToEdit(word);
+        if (entries == null) {
+            entries = new SortedArrayList<>();
+            index.put(word, NO_LINES);
+            edited.put(word, entries);
+        }
+        entries.insert(new Entry(code, definition));
+
+        pos[code.code()]++;
+        defCount++;
+
+        return "Successfully added " + word;
+    }
+
+    /**
+     * Saves the glossary (with any updates) to a given file path, replacing the
+     * file only once the whole glossary has been written. Unedited words are
+     * decoded one at a time as they are written, without going through the cache.
+     * @param filename -- the file path and name of which is given by the user
+     * @return -- log information after saving the glossary
+     * @throws IOException -- if the glossary could not be written to the given file path
+     */
+    public String option10(String filename) throws IOException {
+        new GlossaryWriter().save(() -> new Iterator<Map.Entry<String, SortedArrayList<Entry>>>() {
+
+            private final Iterator<Map.Entry<String, long[]>> words = index.entrySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return words.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, SortedArrayList<Entry>> next() {
+                Map.Entry<String, long[]> word = words.next();
+                SortedArrayList<Entry> entries = edited.get(word.getKey());
+                if (entries == null) {
+                    entries = decode(word.getValue());
+                }
+
+                return new AbstractMap.SimpleImmutableEntry<>(word.getKey(), entries);
+            }
+        }, Paths.get(filename));
+
+        return String.format("Successfully saved dictionary to %s", filename);
+    }
+
+    /**
+     * Gets the entries for a word, decoding and caching them if they are not in memory
+     * @param word -- the word
+     * @return -- the word's entries, or null if the word is not in the glossary
+     */
+    private SortedArrayList<Entry> entries(String word) {
+        SortedArrayList<Entry> entries = edited.get(word);
+        if (entries != null) {
+            return entries;
+        }
+
+        entries = decoded.get(word);
+        if (entries == null) {
+            long[] lines = index.get(word);
+            if (lines == null) {
+                return null;
+            }
+            entries = decode(lines);
+            decoded.put(word, entries);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Gets the entries for a word that is about to be edited, moving them out of
+     * the cache so they are kept, since they will no longer match the file
+     * @param word -- the word
+     * @return -- the word's entries, or null if the word is not in the glossary
+     */
+    private SortedArrayList<Entry> entriesToEdit(String word) {
+        SortedArrayList<Entry> entries = edited.get(word);
+        if (entries != null) {
+            return entries;
+        }
+
+        entries = entries(word);
+        if (entries != null) {
+            decoded.remove(word);
+            edited.put(word, entries);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Decodes a word's entries from its lines in the mapped file
+     * @param lines -- the byte offsets of the word's lines
+     * @return -- the word's entries
+     */
+    private SortedArrayList<Entry> decode(long[] lines) {
+        SortedArrayList<Entry> entries = new SortedArrayList<>();
+        for (long lineOffset : lines) {
+
+            // Segments start at line boundaries, so a line never spans two of them
+            int segment = Arrays.binarySearch(segmentStarts, lineOffset);
+            if (segment < 0) {
+                segment = -segment - 2;
+            }
+
+            MappedByteBuffer line = segments[segment].duplicate();
+            int lineStart = (int) (lineOffset - segmentStarts[segment]);
+            int lineEnd = lineStart;
+            while (lineEnd < line.limit() && line.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            line.limit(lineEnd).position(lineStart);
+            parser.parse(line, lineOffset, (word, partOfSpeech, definition) -> entries.insert(new Entry(partOfSpeech, definition)));
+        }
+        decodeCount++;
+
+        return entries;
+    }
+
+    /**
+     * A growable list of line offsets, used while indexing to avoid boxing each offset
+     */
+    private static class LineList {
+
+        private long[] offsets = new long[1];
+        private int size;
+
+        /**
+         * Adds an offset to the list
+         * @param offset -- the byte offset of a line
+         */
+        private void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+
+        /**
+         * Gets the offsets in a right-sized array
+         * @return -- the offsets, in the order they were added
+         */
+        private long[] toArray() {
+            return size == offsets.length ? offsets : Arrays.copyOf(offsets, size);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package comprehensive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class parses word::pos::definition lines directly from raw UTF-8 bytes.
+ * Separators are located by scanning bytes, so the only objects created per line
+ * are the final word and definition strings. Lines that are entirely ASCII skip
+ * UTF-8 decoding, and parts of speech are matched to their PartOfSpeech code
+ * without decoding. Lines that are missing a separator or that have an unknown
+ * part of speech are skipped and remembered by byte offset.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class LineParser {
+
+    private static final PartOfSpeech[] PARTS_OF_SPEECH = PartOfSpeech.values();
+
+    private byte[] scratch;
+    private ArrayList<Long> malformedOffsets;
+
+    /**
+     * Receives each well-formed line found by the parser
+     */
+    public interface LineHandler {
+
+        /**
+         * Accepts one parsed line
+         * @param word -- the parsed word
+         * @param partOfSpeech -- the parsed part of speech
+         * @param definition -- the parsed definition
+         */
+        void accept(String word, PartOfSpeech partOfSpeech, String definition);
+    }
+
+    /**
+     * Receives the word and location of each well-formed line found by the parser,
+     * for callers that read definitions later
+     */
+    public interface KeyHandler {
+
+        /**
+         * Accepts one parsed line, without its definition
+         * @param word -- the parsed word
+         * @param partOfSpeech -- the parsed part of speech
+         * @param lineOffset -- the byte offset of the start of the line within its file
+         */
+        void accept(String word, PartOfSpeech partOfSpeech, long lineOffset);
+    }
+
+    /**
+     * Constructs a new LineParser
+     */
+    public LineParser() {
+        this.scratch = new byte[256];
+        this.malformedOffsets = new ArrayList<>();
+    }
+
+    /**
+     * Parses every line between the buffer's position and limit, passing each
+     * well-formed line to the handler. The buffer's position is not changed.
+     * @param buffer -- the bytes to parse, which should start at the beginning of a line
+     * @param baseOffset -- the byte offset of the buffer's position within its file,
+     *                   used when reporting malformed lines
+     * @param handler -- the handler for each parsed line
+     */
+    public void parse(ByteBuffer buffer, long baseOffset, LineHandler handler) {
+        scan(buffer, baseOffset, handler, null);
+    }
+
+    /**
+     * Parses every line between the buffer's position and limit like parse, but passes
+     * each well-formed line's word and offset to the handler without decoding its
+     * definition. The buffer's position is not changed.
+     * @param buffer -- the bytes to parse, which should start at the beginning of a line
+     * @param baseOffset -- the byte offset of the buffer's position within its file
+     * @param handler -- the handler for each parsed line
+     */
+    public void parseKeys(ByteBuffer buffer, long baseOffset, KeyHandler handler) {
+        scan(buffer, baseOffset, null, handler);
+    }
+
+    /**
+     * Parses every line between the buffer's position and limit, passing each
+     * well-formed line to whichever of the two handlers is given
+     * @param buffer -- the bytes to parse, which should start at the beginning of a line
+     * @param baseOffset -- the byte offset of the buffer's position within its file
+     * @param lines -- the handler for each parsed line, or null to pass only keys
+     * @param keys -- the handler for each parsed line's key, used when lines is null
+     */
+    private void scan(ByteBuffer buffer, long baseOffset, LineHandler lines, KeyHandler keys) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int lineStart = start;
+
+        while (lineStart < limit) {
+
+            // Scan the word up to the first separator, noting whether it is pure ASCII
+            int index = lineStart;
+            boolean ascii = true;
+            byte b = 0;
+            while (index < limit && (b = buffer.get(index)) != ':' && b != '\n') {
+                ascii &= b >= 0;
+                index++;
+            }
+
+            if (index == limit || b == '\n') {
+                lineStart = skipLine(buffer, lineStart, index, limit, baseOffset - start);
+                continue;
+            }
+
+            int wordEnd = index;
+            boolean wordAscii = ascii;
+            if (index + 1 >= limit || buffer.get(index + 1) != ':') {
+                lineStart = skipLine(buffer, lineStart, index, limit, baseOffset - start);
+                continue;
+            }
+
+            // Scan the part of speech up to the second separator
+            int posStart = index + 2;
+            index = posStart;
+            ascii = true;
+            while (index < limit && (b = buffer.get(index)) != ':' && b != '\n') {
+                ascii &= b >= 0;
+                index++;
+            }
+
+            if (index + 1 >= limit || b == '\n' || buffer.get(index + 1) != ':') {
+                lineStart = skipLine(buffer, lineStart, index, limit, baseOffset - start);
+                continue;
+            }
+
+            int posEnd = index;
+            boolean posAscii = ascii;
+
+            // The definition runs to the end of the line and may itself contain colons
+            int defStart = index + 2;
+            index = defStart;
+            ascii = true;
+            while (index < limit && (b = buffer.get(index)) != '\n') {
+                ascii &= b >= 0;
+                index++;
+            }
+
+            int defEnd = index;
+            if (defEnd > defStart && buffer.get(defEnd - 1) == '\r') {
+                defEnd--;
+            }
+
+            PartOfSpeech partOfSpeech = posAscii ? matchPartOfSpeech(buffer, posStart, posEnd) : null;
+            if (partOfSpeech == null) {
+                lineStart = skipLine(buffer, lineStart, index, limit, baseOffset - start);
+                continue;
+            }
+
+            String word = decode(buffer, lineStart, wordEnd, wordAscii);
+            if (lines == null) {
+                keys.accept(word, partOfSpeech, lineStart + baseOffset - start);
+            }
+            else {
+                lines.accept(word, partOfSpeech, decode(buffer, defStart, defEnd, ascii));
+            }
+
+            lineStart = index + 1;
+        }
+    }
+
+    /**
+     * Gets the byte offsets of every malformed line seen by this parser, in the order they were found
+     * @return -- the offsets of the malformed lines
+     */
+    public List<Long> getMalformedOffsets() {
+        return malformedOffsets;
+    }
+
+    /**
+     * Skips past the rest of a line that could not be parsed, recording its
+     * offset unless the line was blank
+     * @param buffer -- the bytes being parsed
+     * @param lineStart -- the index of the start of the line
+     * @param index -- the index the scan stopped at
+     * @param limit -- the end of the bytes being parsed
+     * @param offsetDelta -- the difference between a buffer index and its file offset
+     * @return -- the index of the start of the next line
+     */
+    private int skipLine(ByteBuffer buffer, int lineStart, int index, int limit, long offsetDelta) {
+        while (index < limit && buffer.get(index) != '\n') {
+            index++;
+        }
+
+        // Blank lines, such as a trailing newline at the end of a file, are not malformed
+        int contentEnd = index;
+        if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+            contentEnd--;
+        }
+        if (contentEnd > lineStart) {
+            malformedOffsets.add(lineStart + offsetDelta);
+        }
+
+        return index + 1;
+    }
+
+    /**
+     * Matches a range of ASCII bytes against the labels of the known parts of speech
+     * @param buffer -- the bytes being parsed
+     * @param start -- the index of the first byte
+     * @param end -- the index just past the last byte
+     * @return -- the matching part of speech, or null if there is none
+     */
+    private static PartOfSpeech matchPartOfSpeech(ByteBuffer buffer, int start, int end) {
+        for (PartOfSpeech partOfSpeech : PARTS_OF_SPEECH) {
+            if (matches(buffer, start, end, partOfSpeech.toString())) {
+                return partOfSpeech;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines if a range of ASCII bytes spells out the given string
+     * @param buffer -- the bytes being parsed
+     * @param start -- the index of the first byte
+     * @param end -- the index just past the last byte
+     * @param value -- the ASCII string to compare against
+     * @return -- true if the bytes match the string, otherwise false
+     */
+    private static boolean matches(ByteBuffer buffer, int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.get(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Decodes a range of bytes into a String, skipping UTF-8 decoding for pure ASCII
+     * @param buffer -- the bytes being parsed
+     * @param start -- the index of the first byte
+     * @param end -- the index just past the last byte
+     * @param ascii -- whether every byte in the range is ASCII
+     * @return -- the decoded String
+     */
+    private String decode(ByteBuffer buffer, int start, int end, boolean ascii) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+
+        return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+}
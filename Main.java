@@ -1,6 +1,10 @@
 package comprehensive;
 
+import javax.management.JMException;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -12,20 +16,43 @@ import java.util.*;
  */
 public class Main {
 
+    // One reader for every prompt, so input piped in is not lost between prompts
+    private static final Scanner input = new Scanner(System.in);
+
     /**
      * The main method for this class
      * @param args -- the list of arguments provided by the end user,
      *             which should represent all attempts at giving a valid
-     *             file path that contains the data to populate the glossary with
+     *             file path that contains the data to populate the glossary with.
+     *             If the first two arguments are --batch and a command file (or - for
+     *             standard input), the commands are run without prompting instead.
+     *             If they are --serve and a port, the glossary is served over HTTP.
+     *             If the first argument is --all, every file path after it is loaded
+     *             together into one glossary, instead of using the first valid one
      */
     public static void main(String[] args){
+        if (args.length >= 2 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--serve")) {
+            runServer(args);
+            return;
+        }
+
         boolean running = (args.length != 0);
         Glossary glossary = null;
         String validPartsOfSpeech = "[noun, verb, adj, adv, pron, prep, conj, interj]";
 
         // Attempts to populate the glossary using the arguments passed to the main method
-        if (running) {
+        if (running && args[0].equals("--all")) {
             glossary = new Glossary();
+            glossary.enableMetrics();
+            running = populateAll(glossary, Arrays.asList(args).subList(1, args.length));
+        }
+        else if (running) {
+            glossary = new Glossary();
+            glossary.enableMetrics();
             boolean validFilePath = false;
             int argsIndex = 0;
 
@@ -40,6 +67,22 @@ public class Main {
                         glossary.populateGlossary(args[argsIndex]);
                         validFilePath = true;
                         System.out.println();
+                        publishMetrics(glossary.getMetrics(), args[argsIndex]);
+
+                        List<Long> malformed = glossary.getMalformedLineOffsets(args[argsIndex]);
+                        if (!malformed.isEmpty()) {
+                            System.out.printf("Skipped %d malformed line(s), the first at byte offset %d%n", malformed.size(), malformed.get(0));
+                        }
+
+                        // Replay and keep recording edits made since the file was last saved
+                        try {
+                            int replayed = glossary.openMutationLog(args[argsIndex], args[argsIndex] + ".log");
+                            if (replayed > 0) {
+                                System.out.printf("Replayed %d unsaved edit(s) from %s.log%n", replayed, args[argsIndex]);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            System.out.println("Could not open the edit log, edits will only be kept until they are saved.");
+                        }
                     } catch (Exception e) {
                         System.out.println("\nInvalid file path, please try again.");
                         argsIndex++;
@@ -53,162 +96,193 @@ public class Main {
 
         // Check to see if glossary has been populated
         while (running) {
-            String input = getTrimmedNonWhitespaceInput("Select an option: ");
-
-            switch (input) {
-                case "1" -> System.out.println("\n" + glossary.option1());
-                case "2" -> {
-
-                    String first = getTrimmedNonWhitespaceInput("Starting word: ");
-                    String end = getTrimmedNonWhitespaceInput("Ending word: ");
-
-                    try {
-                        System.out.println("\n" + glossary.option2(first, end));
-                    }
-                    catch (IllegalArgumentException e) {
-                        System.out.println("\nThe input starting and/or ending word was invalid.");
-                    }
-                }
-                case "3" -> {
-                    String word = getTrimmedNonWhitespaceInput("Enter a word: ");
-                    System.out.println("\n" + glossary.option3(word, true));
-                }
-                case "4" -> System.out.println("\n" + glossary.option4());
-                case "5" -> System.out.println("\n" + glossary.option5());
-                case "6" -> {
-                    String word = getTrimmedNonWhitespaceInput("Enter a word: ");
-                    System.out.println("\n" + glossary.option6(word));
-                }
-                case "7" -> {
-                    String word = getTrimmedNonWhitespaceInput("Enter a word: ");
-
-                    SortedArrayList<Entry> wordEntries = glossary.getGlossary().get(word);
+            String input;
+            try {
+                input = getTrimmedNonWhitespaceInput("Select an option: ");
+            }
+            catch (NoSuchElementException e) {
+                // The input ran out, so finish as if the user had chosen to exit
+                input = "11";
+            }
 
-                    if (wordEntries == null) {
-                        System.out.println("\n" + word + " was not found in the glossary.");
-                        break;
-                    }
+            try {
+                switch (input) {
+                    case "1" -> System.out.println("\n" + glossary.option1());
+                    case "2" -> {
 
-                    System.out.println("\n" + glossary.option3(word, false));
+                        String first = getTrimmedNonWhitespaceInput("Starting word: ");
+                        String end = getTrimmedNonWhitespaceInput("Ending word: ");
 
-                    boolean invalidInput = true;
-                    int numToUpdate = -1;
-                    int glossarySize = glossary.getGlossary().get(word).size();
-                    while (invalidInput) {
+                        // Stream the words out as they are found instead of building one large String
                         try {
-                            numToUpdate = Integer.parseInt(
-                                    getTrimmedNonWhitespaceInput("\n" + "Select a definition to update: ")
-                            );
-
-                            if (numToUpdate > 0 && numToUpdate <= glossarySize + 1) {
-                                invalidInput = false;
-                            } else {
-                                System.out.println("\nInput number was not a valid choice to update.");
+                            Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+                            out.append('\n');
+                            try {
+                                glossary.option2(first, end, out);
+                            }
+                            catch (IllegalArgumentException e) {
+                                out.append("The input starting and/or ending word was invalid.");
                             }
-                        } catch (Exception e) {
-                            System.out.println("\nInput was not a number to update.");
+                            out.append('\n').flush();
+                        }
+                        catch (IOException e) {
+                            e.printStackTrace();
                         }
-
                     }
-
-                    // User has entered a value definition to update = not the return to menu option
-                    if (numToUpdate != wordEntries.size() + 1) {
-                        String newDefinition = getTrimmedNonWhitespaceInput("Type a new definition: ");
-                        System.out.println("\n" + glossary.option7(wordEntries, numToUpdate, newDefinition));
-
+                    case "3" -> {
+                        String word = getTrimmedNonWhitespaceInput("Enter a word: ");
+                        System.out.println("\n" + glossary.option3(word, true));
+                        printSuggestions(glossary, word);
                     }
+                    case "4" -> System.out.println("\n" + glossary.option4());
+                    case "5" -> System.out.println("\n" + glossary.option5());
+                    case "6" -> {
+                        String word = getTrimmedNonWhitespaceInput("Enter a word: ");
+                        System.out.println("\n" + glossary.option6(word));
+                        printSuggestions(glossary, word);
+                    }
+                    case "7" -> {
+                        String word = getTrimmedNonWhitespaceInput("Enter a word: ");
 
-                }
-                case "8" -> {
-                    String word = getTrimmedNonWhitespaceInput("Enter a word: ");
+                        SortedArrayList<Entry> wordEntries = glossary.getGlossary().get(word);
 
-                    String result = glossary.option3(word, false);
+                        if (wordEntries == null) {
+                            System.out.println("\n" + word + " was not found in the glossary.");
+                            printSuggestions(glossary, word);
+                            break;
+                        }
 
-                    System.out.println("\n" + result);
-                    
-                    if(!result.equals(String.format("%s not found", word)))
-                    {
+                        System.out.println("\n" + glossary.option3(word, false));
 
                         boolean invalidInput = true;
-                        int numToRemove = -1;
+                        int numToUpdate = -1;
                         int glossarySize = glossary.getGlossary().get(word).size();
                         while (invalidInput) {
                             try {
-                                numToRemove = Integer.parseInt(
+                                numToUpdate = Integer.parseInt(
                                         getTrimmedNonWhitespaceInput("\n" + "Select a definition to update: ")
                                 );
 
-                                if (numToRemove > 0 && numToRemove <= glossarySize + 1) {
+                                if (numToUpdate > 0 && numToUpdate <= glossarySize + 1) {
                                     invalidInput = false;
                                 } else {
                                     System.out.println("\nInput number was not a valid choice to update.");
                                 }
-                            } catch (Exception e) {
+                            } catch (NumberFormatException e) {
                                 System.out.println("\nInput was not a number to update.");
                             }
 
                         }
 
-                        String deleteResult = glossary.option8(word, numToRemove);
+                        // User has entered a value definition to update = not the return to menu option
+                        if (numToUpdate != wordEntries.size() + 1) {
+                            String newDefinition = getTrimmedNonWhitespaceInput("Type a new definition: ");
+                            System.out.println("\n" + glossary.option7(word, numToUpdate, newDefinition));
+
+                        }
 
-                        System.out.println("\n" + deleteResult);
                     }
-                }
-                case "9" -> {
-                    String word = getTrimmedNonWhitespaceInput("Type a word: ");
-                    System.out.printf("Valid parts of speech - %s", validPartsOfSpeech);
+                    case "8" -> {
+                        String word = getTrimmedNonWhitespaceInput("Enter a word: ");
 
-                    String partOfSpeech = null;
-                    boolean invalidInput = true;
+                        String result = glossary.option3(word, false);
 
-                    while(invalidInput) {
-                        partOfSpeech = getTrimmedNonWhitespaceInput("\nEnter the part of speech: ");
+                        System.out.println("\n" + result);
+                        printSuggestions(glossary, word);
+                    
+                        if(!result.equals(String.format("%s not found", word)))
+                        {
+
+                            boolean invalidInput = true;
+                            int numToRemove = -1;
+                            int glossarySize = glossary.getGlossary().get(word).size();
+                            while (invalidInput) {
+                                try {
+                                    numToRemove = Integer.parseInt(
+                                            getTrimmedNonWhitespaceInput("\n" + "Select a definition to update: ")
+                                    );
+
+                                    if (numToRemove > 0 && numToRemove <= glossarySize + 1) {
+                                        invalidInput = false;
+                                    } else {
+                                        System.out.println("\nInput number was not a valid choice to update.");
+                                    }
+                                } catch (NumberFormatException e) {
+                                    System.out.println("\nInput was not a number to update.");
+                                }
 
-                        if (validPartsOfSpeech.contains(partOfSpeech)) {
-                            invalidInput = false;
+                            }
+
+                            String deleteResult = glossary.option8(word, numToRemove);
+
+                            System.out.println("\n" + deleteResult);
                         }
                     }
+                    case "9" -> {
+                        String word = getTrimmedNonWhitespaceInput("Type a word: ");
+                        System.out.printf("Valid parts of speech - %s", validPartsOfSpeech);
 
-                    String newDefinition = getTrimmedNonWhitespaceInput("Type a definition: ");
-                    System.out.println("\n" + glossary.option9(word, partOfSpeech, newDefinition));
-                }
-                case "10" -> {
-
-                    String filename = null;
-                    boolean invalidInput = true;
-                    while (invalidInput) {
-                        filename = getTrimmedNonWhitespaceInput("Type a filename with path: ");
-
-                        File file = new File(filename);
-                        if (file.getParentFile() != null && file.getParentFile().exists()) {
-                            invalidInput = false;
-                            try
-                            {
-                                file.createNewFile();
-                            }
-                            catch(IOException ex)
-                            {
-                                ex.printStackTrace();
-                            }
+                        String partOfSpeech = null;
+                        boolean invalidInput = true;
+
+                        while(invalidInput) {
+                            partOfSpeech = getTrimmedNonWhitespaceInput("\nEnter the part of speech: ");
 
-                        } else {
-                            System.out.println("\nFile not found\n");
+                            if (PartOfSpeech.fromLabel(partOfSpeech) != null) {
+                                invalidInput = false;
+                            }
                         }
 
+                        String newDefinition = getTrimmedNonWhitespaceInput("Type a definition: ");
+                        System.out.println("\n" + glossary.option9(word, partOfSpeech, newDefinition));
                     }
+                    case "10" -> {
+
+                        String filename = null;
+                        boolean invalidInput = true;
+                        while (invalidInput) {
+                            filename = getTrimmedNonWhitespaceInput("Type a filename with path: ");
+
+                            File file = new File(filename);
+                            if (file.getParentFile() != null && file.getParentFile().exists()) {
+                                invalidInput = false;
+                                try
+                                {
+                                    file.createNewFile();
+                                }
+                                catch(IOException ex)
+                                {
+                                    ex.printStackTrace();
+                                }
 
-                    try
-                    {
-                        System.out.println("\n" + glossary.option10(filename));
+                            } else {
+                                System.out.println("\nFile not found\n");
+                            }
+
+                        }
+
+                        try
+                        {
+                            System.out.println("\n" + glossary.option10(filename));
+                        }
+                        catch(IOException e)
+                        {
+                            e.printStackTrace();
+                        }
                     }
-                    catch(FileNotFoundException e)
-                    {
-                        e.printStackTrace();
+                    case "11" -> {
+                        running = false;
+                        closeMutationLog(glossary);
                     }
+                    default -> System.out.println("\nInvalid selection");
+
                 }
-                case "11" -> running = false;
-                default -> System.out.println("\nInvalid selection");
+            }
+            catch (NoSuchElementException e) {
 
+                // The input ran out partway through a command, so finish as if the user had chosen to exit
+                running = false;
+                closeMutationLog(glossary);
             }
 
             System.out.println();
@@ -217,6 +291,19 @@ public class Main {
 
     }
 
+    /**
+     * Stops recording edits to the glossary's mutation log before exiting
+     * @param glossary -- the glossary whose log to close
+     */
+    private static void closeMutationLog(Glossary glossary) {
+        try {
+            glossary.closeMutationLog();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Fetches user input and validates it until the user has given a valid
      * input that does not contain whitespace
@@ -229,7 +316,7 @@ public class Main {
 
         while (invalidInput) {
             System.out.print(prompt);
-            input = new Scanner(System.in).nextLine().trim();
+            input = Main.input.nextLine().trim();
 
             if (input.equals("")) {
                 System.out.println("\nYour input was empty.\n");
@@ -242,4 +329,183 @@ public class Main {
         return input;
     }
 
+    /**
+     * Populates a glossary from the first readable glossary file given after the command
+     * file, then runs every command in the command file through a BatchRunner. Results
+     * go to standard output, and progress and the command rate go to standard error.
+     * @param args -- --batch, the command file or - for standard input, then the glossary file paths
+     */
+    private static void runBatch(String[] args) {
+        Glossary glossary = new Glossary();
+        glossary.enableMetrics();
+        String glossaryFile = null;
+        for (int i = 2; i < args.length && glossaryFile == null; i++) {
+            try {
+                glossary.populateGlossary(args[i]);
+                glossaryFile = args[i];
+            }
+            catch (IOException e) {
+                System.err.println("Invalid file path: " + args[i]);
+            }
+        }
+
+        if (glossaryFile == null) {
+            System.err.println("No valid glossary file path was given.");
+            return;
+        }
+        publishMetrics(glossary.getMetrics(), glossaryFile);
+
+        try {
+            int replayed = glossary.openMutationLog(glossaryFile, glossaryFile + ".log");
+            if (replayed > 0) {
+                System.err.printf("Replayed %d unsaved edit(s) from %s.log%n", replayed, glossaryFile);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            System.err.println("Could not open the edit log, edits will only be kept until they are saved.");
+        }
+
+        BatchRunner runner = new BatchRunner(glossary);
+        long start = System.nanoTime();
+        try {
+            // Edits are forced to disk together when the log is closed, rather than one fsync per edit
+            glossary.deferMutationLogSync(true);
+
+            BufferedReader in = args[1].equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+            try (in) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                runner.run(in, out);
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Could not run the commands: " + e.getMessage());
+        }
+        finally {
+            try {
+                glossary.closeMutationLog();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Ran %d command(s) in %.3f s (%.0f commands/sec), %d rejected%n",
+                runner.getCommandCount(), seconds, runner.getCommandCount() / Math.max(seconds, 1e-9), runner.getErrorCount());
+    }
+
+    /**
+     * Populates a glossary from the first readable glossary file given after the port,
+     * then serves it over HTTP on the loopback address until the process is stopped.
+     * Edits made through the server are kept in memory only.
+     * @param args -- --serve, the port or 0 for any free port, then the glossary file paths
+     */
+    private static void runServer(String[] args) {
+        int port;
+        try {
+            port = Integer.parseInt(args[1]);
+        }
+        catch (NumberFormatException e) {
+            System.err.println("Invalid port: " + args[1]);
+            return;
+        }
+
+        Glossary glossary = new Glossary();
+        String glossaryFile = null;
+        for (int i = 2; i < args.length && glossaryFile == null; i++) {
+            try {
+                glossary.populateGlossary(args[i]);
+                glossaryFile = args[i];
+            }
+            catch (IOException e) {
+                System.err.println("Invalid file path: " + args[i]);
+            }
+        }
+
+        if (glossaryFile == null) {
+            System.err.println("No valid glossary file path was given.");
+            return;
+        }
+
+        // Requests are served from the copy, so its metrics are the ones published
+        ConcurrentGlossary concurrentGlossary = new ConcurrentGlossary(glossary);
+        publishMetrics(concurrentGlossary.enableMetrics(), glossaryFile);
+
+        try {
+            GlossaryServer server = new GlossaryServer(concurrentGlossary, port);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            System.err.printf("Serving %s on http://localhost:%d/%n", glossaryFile, server.getPort());
+        }
+        catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Populates a glossary from every given file path at once, parsing the files in
+     * parallel. Edits are not logged, since a merged glossary has no one file to
+     * replay them onto; they are kept only until the glossary is saved.
+     * @param glossary -- the glossary to populate
+     * @param filenames -- the file paths to load
+     * @return -- whether the glossary was populated
+     */
+    private static boolean populateAll(Glossary glossary, List<String> filenames) {
+        if (filenames.isEmpty()) {
+            System.out.println("No file paths were given.");
+            return false;
+        }
+
+        try {
+            glossary.populateGlossaryParallel(filenames);
+        }
+        catch (IOException e) {
+            System.out.println("Invalid file path: " + e.getMessage());
+            return false;
+        }
+
+        System.out.printf("Loaded %d word(s) from %d file(s)%n", glossary.getWordCount(), filenames.size());
+        for (Map.Entry<String, List<Long>> malformed : glossary.getMalformedLineOffsetsByFile().entrySet()) {
+            System.out.printf("Skipped %d malformed line(s) in %s, the first at byte offset %d%n",
+                    malformed.getValue().size(), malformed.getKey(), malformed.getValue().get(0));
+        }
+        System.out.println("Edits are kept only until the glossary is saved.");
+        publishMetrics(glossary.getMetrics(), filenames.get(0));
+
+        return true;
+    }
+
+    /**
+     * Publishes a glossary's metrics through the platform MBean server, named after
+     * the file it was populated from, so they can be watched with jconsole
+     * @param metrics -- the metrics of the glossary
+     * @param glossaryFile -- the file path it was populated from
+     */
+    private static void publishMetrics(GlossaryMetrics metrics, String glossaryFile) {
+        try {
+            metrics.register(Paths.get(glossaryFile).getFileName().toString());
+        }
+        catch (JMException e) {
+            System.err.println("Could not publish the glossary metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints "did you mean" suggestions if a word is not in the glossary
+     * @param glossary -- the glossary that was searched
+     * @param word -- the word the user entered
+     */
+    private static void printSuggestions(Glossary glossary, String word) {
+        if (glossary.getGlossary().containsKey(word)) {
+            return;
+        }
+
+        String suggestions = glossary.didYouMean(word);
+        if (!suggestions.isEmpty()) {
+            System.out.println(suggestions);
+        }
+    }
+
 }
@@ -0,0 +1,369 @@
+package comprehensive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents an append-only, checksummed log of the edits
+ * made by option7, option8 and option9 since the last full save of a
+ * base glossary file. Replaying the log on top of the base file restores
+ * every logged edit, without rewriting the whole glossary for each one.
+ * <p>
+ * The log starts with a header that fingerprints the base file by its size
+ * and modification time. If the base file no longer matches (for example,
+ * it was rewritten by a compaction that crashed before the log was reset),
+ * the records are already part of the base file and are not replayed.
+ * Each record is an int payload length, an int CRC32 of the payload, then
+ * the payload. A torn or corrupt record at the end of the log, left by a
+ * crash partway through an append, ends the replay and is truncated away.
+ * <p>
+ * Appends use group commit: a writer waits until its record is forced to disk,
+ * but a single force covers every record appended before it, so concurrent
+ * writers share one fsync. Scripted runs can defer syncing instead, so
+ * appends return as soon as the record is written and a later call to
+ * sync forces everything at once.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class MutationLog implements Closeable {
+
+    private static final long MAGIC = 0x474C4F5353574C31L; // "GLOSSWL1"
+    private static final int HEADER_SIZE = 8 + 8 + 8;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+
+    private static final byte UPDATE = 1;
+    private static final byte DELETE = 2;
+    private static final byte ADD = 3;
+
+    private final Path path;
+    private final Path base;
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    private long appendedCount;
+    private long syncedCount;
+    private volatile boolean deferSync;
+
+    /**
+     * Applies replayed edits, in the order they were logged
+     */
+    public interface Replayer {
+
+        /**
+         * Replays an option7 edit
+         * @param word -- the word whose definition was updated
+         * @param numToUpdate -- the number of the definition that was updated
+         * @param newDefinition -- the new definition
+         */
+        void update(String word, int numToUpdate, String newDefinition);
+
+        /**
+         * Replays an option8 edit
+         * @param word -- the word whose definition was removed
+         * @param numToRemove -- the number of the definition that was removed
+         */
+        void delete(String word, int numToRemove);
+
+        /**
+         * Replays an option9 edit
+         * @param word -- the word that was given a new definition
+         * @param partOfSpeech -- the new Entry's part of speech
+         * @param definition -- the new Entry's definition
+         */
+        void add(String word, PartOfSpeech partOfSpeech, String definition);
+    }
+
+    /**
+     * Opens the log at the given path, creating it if it does not exist.
+     * A log that holds no records when it is closed is deleted again, so
+     * sessions that make no edits do not leave an empty log behind.
+     * @param path -- the log file
+     * @param base -- the glossary file that the log's edits apply on top of
+     * @throws IOException -- if the log could not be opened
+     */
+    public MutationLog(Path path, Path base) throws IOException {
+        this.path = path;
+        this.base = base;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replays every intact record onto the glossary, then positions the log
+     * for appending. If the log is empty or was written against a different
+     * version of the base file, nothing is replayed and the log is reset.
+     * @param replayer -- applies each replayed edit
+     * @return -- the number of edits replayed
+     * @throws IOException -- if the log could not be read or repaired
+     */
+    public int replay(Replayer replayer) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            reset();
+            return 0;
+        }
+
+        ByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (log.getLong() != MAGIC || log.getLong() != Files.size(base)
+                || log.getLong() != Files.getLastModifiedTime(base).toMillis()) {
+            reset();
+            return 0;
+        }
+
+        int replayed = 0;
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= RECORD_HEADER_SIZE) {
+            int start = log.position();
+            int length = log.getInt();
+            int checksum = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                log.position(start);
+                break;
+            }
+
+            ByteBuffer payload = log.slice(log.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                log.position(start);
+                break;
+            }
+
+            apply(payload, replayer);
+            log.position(log.position() + length);
+            replayed++;
+        }
+
+        // Drop a torn record left by a crash partway through an append
+        if (log.position() < size) {
+            channel.truncate(log.position());
+            channel.force(false);
+        }
+        channel.position(log.position());
+
+        return replayed;
+    }
+
+    /**
+     * Decodes one record payload and passes it to the replayer
+     * @param payload -- the record payload
+     * @param replayer -- applies the replayed edit
+     * @throws IOException -- if the record type is unknown
+     */
+    private static void apply(ByteBuffer payload, Replayer replayer) throws IOException {
+        byte type = payload.get();
+        String word = getString(payload);
+
+        switch (type) {
+            case UPDATE -> replayer.update(word, payload.getInt(), getString(payload));
+            case DELETE -> replayer.delete(word, payload.getInt());
+            case ADD -> replayer.add(word, PartOfSpeech.fromCode(payload.get()), getString(payload));
+            default -> throw new IOException("Unknown mutation log record type " + type);
+        }
+    }
+
+    /**
+     * Logs an option7 edit and waits until it is durable
+     * @param word -- the word whose definition was updated
+     * @param numToUpdate -- the number of the definition that was updated
+     * @param newDefinition -- the new definition
+     * @throws IOException -- if the record could not be written
+     */
+    public void logUpdate(String word, int numToUpdate, String newDefinition) throws IOException {
+        byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+        byte[] definitionBytes = newDefinition.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + wordBytes.length + 4 + 4 + definitionBytes.length);
+        payload.put(UPDATE);
+        putString(payload, wordBytes);
+        payload.putInt(numToUpdate);
+        putString(payload, definitionBytes);
+        append(payload);
+    }
+
+    /**
+     * Logs an option8 edit and waits until it is durable
+     * @param word -- the word whose definition was removed
+     * @param numToRemove -- the number of the definition that was removed
+     * @throws IOException -- if the record could not be written
+     */
+    public void logDelete(String word, int numToRemove) throws IOException {
+        byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + wordBytes.length + 4);
+        payload.put(DELETE);
+        putString(payload, wordBytes);
+        payload.putInt(numToRemove);
+        append(payload);
+    }
+
+    /**
+     * Logs an option9 edit and waits until it is durable
+     * @param word -- the word that was given a new definition
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @throws IOException -- if the record could not be written
+     */
+    public void logAdd(String word, PartOfSpeech partOfSpeech, String definition) throws IOException {
+        byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+        byte[] definitionBytes = definition.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + wordBytes.length + 1 + 4 + definitionBytes.length);
+        payload.put(ADD);
+        putString(payload, wordBytes);
+        payload.put(partOfSpeech.code());
+        putString(payload, definitionBytes);
+        append(payload);
+    }
+
+    /**
+     * Getter for the size of the log
+     * @return -- the size of the log file in bytes
+     * @throws IOException -- if the size could not be read
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Empties the log and fingerprints the current base file, which should
+     * already contain every logged edit
+     * @throws IOException -- if the log could not be rewritten
+     */
+    public synchronized void reset() throws IOException {
+
+        // Truncate before writing the new header, so a crash in between leaves an empty log rather than stale records
+        channel.truncate(0);
+        channel.force(false);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC);
+        header.putLong(Files.size(base));
+        header.putLong(Files.getLastModifiedTime(base).toMillis());
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.position(HEADER_SIZE);
+        channel.force(false);
+    }
+
+    /**
+     * Sets whether appends wait for their record to be forced to disk. While syncing
+     * is deferred, records only become durable when sync or close is called.
+     * @param deferSync -- true to defer syncing, false to sync every append
+     * @throws IOException -- if records appended while syncing was deferred could not be forced
+     */
+    public void setDeferSync(boolean deferSync) throws IOException {
+        this.deferSync = deferSync;
+        if (!deferSync) {
+            sync();
+        }
+    }
+
+    /**
+     * Forces every record appended so far to disk
+     * @throws IOException -- if the log could not be forced
+     */
+    public void sync() throws IOException {
+        synchronized (syncLock) {
+            long target;
+            synchronized (this) {
+                target = appendedCount;
+            }
+            if (syncedCount >= target) {
+                return;
+            }
+            channel.force(false);
+            syncedCount = target;
+        }
+    }
+
+    /**
+     * Forces any records that are not yet durable, then closes the log file.
+     * If the log holds no records, the file is deleted.
+     * @throws IOException -- if the log could not be forced, closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        boolean empty;
+        try {
+            sync();
+            empty = channel.size() <= HEADER_SIZE;
+        }
+        finally {
+            channel.close();
+        }
+
+        if (empty) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Appends one checksummed record, then waits for it to be forced to disk
+     * @param payload -- the filled record payload
+     * @throws IOException -- if the record could not be written
+     */
+    private void append(ByteBuffer payload) throws IOException {
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.remaining());
+        record.putInt(payload.remaining());
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+
+        long count;
+        synchronized (this) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            count = ++appendedCount;
+        }
+
+        if (deferSync) {
+            return;
+        }
+
+        // Whoever holds the lock forces every record appended so far, so waiting writers usually find their record already durable
+        synchronized (syncLock) {
+            if (syncedCount >= count) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = appendedCount;
+            }
+            channel.force(false);
+            syncedCount = target;
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string into a record payload
+     * @param payload -- the payload to write to
+     * @param bytes -- the UTF-8 bytes of the string
+     */
+    private static void putString(ByteBuffer payload, byte[] bytes) {
+        payload.putInt(bytes.length);
+        payload.put(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string from a record payload
+     * @param payload -- the payload to read from
+     * @return -- the decoded string
+     */
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
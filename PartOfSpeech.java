@@ -0,0 +1,78 @@
+package comprehensive;
+
+/**
+ * This enum represents the parts of speech an Entry may have.
+ * The constants are declared in alphabetical order of their labels,
+ * so comparing ordinals gives the same order as comparing the labels.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public enum PartOfSpeech {
+
+    ADJ("adj"),
+    ADV("adv"),
+    CONJ("conj"),
+    INTERJ("interj"),
+    NOUN("noun"),
+    PREP("prep"),
+    PRON("pron"),
+    VERB("verb");
+
+    /**
+     * The number of parts of speech, for sizing arrays indexed by code
+     */
+    public static final int COUNT = values().length;
+
+    private static final PartOfSpeech[] BY_CODE = values();
+
+    private final String label;
+
+    /**
+     * Constructs a new PartOfSpeech
+     * @param label -- the label used for this part of speech in glossary files
+     */
+    PartOfSpeech(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Getter for the compact code of this part of speech
+     * @return -- the code, which is between 0 and COUNT - 1
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Gets the part of speech for a given code
+     * @param code -- the code returned by code()
+     * @return -- the matching part of speech
+     */
+    public static PartOfSpeech fromCode(int code) {
+        return BY_CODE[code];
+    }
+
+    /**
+     * Gets the part of speech for a given label
+     * @param label -- the label, such as "noun"
+     * @return -- the matching part of speech, or null if the label is not valid
+     */
+    public static PartOfSpeech fromLabel(String label) {
+        for (PartOfSpeech partOfSpeech : BY_CODE) {
+            if (partOfSpeech.label.equals(label)) {
+                return partOfSpeech;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the label used for this part of speech in glossary files
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
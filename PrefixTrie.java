@@ -0,0 +1,409 @@
+package comprehensive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a compressed radix trie over a set of words,
+ * used to answer prefix (autocomplete) queries and nearest-word
+ * (did you mean) queries. Each node stores the label of the edge
+ * leading into it, and a node's children are kept sorted by the first
+ * character of their labels, so a pre-order walk visits the words in
+ * the same order as String.compareTo.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class PrefixTrie {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Constructs a new, empty PrefixTrie
+     */
+    public PrefixTrie() {
+        this.root = new Node("", false);
+    }
+
+    /**
+     * Returns the number of words in this trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ensures that this trie contains the given word
+     * @param word -- the word to add
+     * @return -- true if the word was added, false if it was already present
+     */
+    public boolean insert(String word) {
+        Node node = root;
+        int index = 0;
+
+        while (true) {
+            if (index == word.length()) {
+                if (node.terminal) {
+                    return false;
+                }
+                node.terminal = true;
+                size++;
+                return true;
+            }
+
+            int childIndex = node.findChild(word.charAt(index));
+            if (childIndex < 0) {
+                node.addChild(-(childIndex + 1), new Node(word.substring(index), true));
+                size++;
+                return true;
+            }
+
+            Node child = node.children[childIndex];
+            int common = commonPrefixLength(child.label, word, index);
+
+            // The word diverges partway along the child's edge, so split the edge at that point
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common), false);
+                child.label = child.label.substring(common);
+                split.addChild(0, child);
+                node.children[childIndex] = split;
+                child = split;
+            }
+
+            node = child;
+            index += common;
+        }
+    }
+
+    /**
+     * Removes the given word from this trie, merging any edges left with a single child
+     * @param word -- the word to remove
+     * @return -- true if the word was removed, false if it was not present
+     */
+    public boolean remove(String word) {
+        Node parent = null;
+        Node node = root;
+        int index = 0;
+
+        while (index < word.length()) {
+            int childIndex = node.findChild(word.charAt(index));
+            if (childIndex < 0) {
+                return false;
+            }
+
+            Node child = node.children[childIndex];
+            if (!word.startsWith(child.label, index)) {
+                return false;
+            }
+
+            parent = node;
+            node = child;
+            index += child.label.length();
+        }
+
+        if (!node.terminal) {
+            return false;
+        }
+
+        node.terminal = false;
+        size--;
+
+        if (parent == null) {
+            return true;
+        }
+
+        if (node.childCount == 0) {
+            parent.removeChild(parent.findChild(node.label.charAt(0)));
+            if (parent != root && !parent.terminal && parent.childCount == 1) {
+                parent.absorbOnlyChild();
+            }
+        }
+        else if (node.childCount == 1) {
+            node.absorbOnlyChild();
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the first words in sorted order that start with the given prefix.
+     * This takes time proportional to the length of the prefix plus the
+     * total length of the returned words.
+     * @param prefix -- the prefix to complete
+     * @param limit -- the maximum number of words to return
+     * @return -- up to limit words starting with the prefix, in sorted order
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> words = new ArrayList<>();
+        if (limit <= 0) {
+            return words;
+        }
+
+        Node node = root;
+        StringBuilder path = new StringBuilder(prefix.length() + 16);
+        int index = 0;
+
+        while (index < prefix.length()) {
+            int childIndex = node.findChild(prefix.charAt(index));
+            if (childIndex < 0) {
+                return words;
+            }
+
+            // The prefix may end partway along the child's edge, in which case every word below it matches
+            Node child = node.children[childIndex];
+            int length = Math.min(child.label.length(), prefix.length() - index);
+            if (!child.label.regionMatches(0, prefix, index, length)) {
+                return words;
+            }
+
+            path.append(child.label);
+            node = child;
+            index += length;
+        }
+
+        collect(node, path, words, limit);
+
+        return words;
+    }
+
+    /**
+     * Gets the words nearest to the given word by edit distance, for suggesting
+     * corrections. The edit distance to every word along a path is computed one
+     * row at a time as the trie is walked, so any branch whose row exceeds the
+     * bound is skipped without visiting the words below it. The bound starts at
+     * 0 and is raised until enough words are found.
+     * @param word -- the word to match
+     * @param maxDistance -- the largest edit distance to accept
+     * @param limit -- the maximum number of words to return
+     * @return -- up to limit words within maxDistance, closest first and then in sorted order
+     */
+    public List<String> nearest(String word, int maxDistance, int limit) {
+        List<String> words = new ArrayList<>();
+        if (limit <= 0 || maxDistance < 0) {
+            return words;
+        }
+
+        int[][] rows = new int[word.length() + 16][];
+        rows[0] = new int[word.length() + 1];
+        for (int i = 0; i <= word.length(); i++) {
+            rows[0][i] = i;
+        }
+
+        for (int bound = 0; bound <= maxDistance; bound++) {
+            List<List<String>> byDistance = new ArrayList<>();
+            for (int i = 0; i <= bound; i++) {
+                byDistance.add(new ArrayList<>());
+            }
+
+            rows = nearest(root, new StringBuilder(), word, rows, bound, byDistance);
+
+            int found = 0;
+            for (List<String> matches : byDistance) {
+                found += matches.size();
+            }
+
+            if (found >= limit || bound == maxDistance) {
+                for (List<String> matches : byDistance) {
+                    for (int i = 0; i < matches.size() && words.size() < limit; i++) {
+                        words.add(matches.get(i));
+                    }
+                }
+                break;
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Adds the words below a node that are within the bound to the list for
+     * their edit distance, in sorted order
+     * @param node -- the node to start at
+     * @param path -- the characters on the path from the root to the node
+     * @param word -- the word to match
+     * @param rows -- the edit distance rows for each prefix of the path, grown as needed
+     * @param bound -- the largest edit distance to accept
+     * @param byDistance -- the lists of matches, indexed by edit distance
+     * @return -- the rows, which may have been replaced by a larger array
+     */
+    private static int[][] nearest(Node node, StringBuilder path, String word, int[][] rows, int bound,
+                                   List<List<String>> byDistance) {
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            int length = path.length();
+            boolean withinBound = true;
+
+            for (int j = 0; j < child.label.length() && withinBound; j++) {
+                int depth = path.length() + 1;
+                if (depth == rows.length) {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                }
+                if (rows[depth] == null) {
+                    rows[depth] = new int[word.length() + 1];
+                }
+
+                // Only cells within bound of the diagonal can be within bound, so the
+                // rest of the row is skipped and its edges are capped at bound + 1
+                int[] previous = rows[depth - 1];
+                int[] row = rows[depth];
+                char c = child.label.charAt(j);
+                int low = Math.max(1, depth - bound);
+                int high = Math.min(word.length(), depth + bound);
+                row[low - 1] = low == 1 ? Math.min(depth, bound + 1) : bound + 1;
+                int smallest = row[low - 1];
+                for (int k = low; k <= high; k++) {
+                    int substitute = previous[k - 1] + (word.charAt(k - 1) == c ? 0 : 1);
+                    row[k] = Math.min(substitute, Math.min(previous[k], row[k - 1]) + 1);
+                    smallest = Math.min(smallest, row[k]);
+                }
+                if (high < word.length()) {
+                    row[high + 1] = bound + 1;
+                }
+
+                path.append(c);
+                withinBound = smallest <= bound;
+            }
+
+            if (withinBound) {
+                // The last cell is only filled in when it is near enough to the diagonal
+                if (child.terminal && word.length() - path.length() <= bound) {
+                    int distance = rows[path.length()][word.length()];
+                    if (distance <= bound) {
+                        byDistance.get(distance).add(path.toString());
+                    }
+                }
+                rows = nearest(child, path, word, rows, bound, byDistance);
+            }
+            path.setLength(length);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Appends the words below a node to the given list in sorted order, until the list is full
+     * @param node -- the node to start at
+     * @param path -- the characters on the path from the root to the node
+     * @param words -- the list to append to
+     * @param limit -- the maximum size of the list
+     */
+    private static void collect(Node node, StringBuilder path, List<String> words, int limit) {
+        if (node.terminal) {
+            words.add(path.toString());
+        }
+
+        for (int i = 0; i < node.childCount && words.size() < limit; i++) {
+            Node child = node.children[i];
+            int length = path.length();
+            path.append(child.label);
+            collect(child, path, words, limit);
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * Gets the length of the common prefix of a label and the rest of a word
+     * @param label -- the edge label
+     * @param word -- the word
+     * @param offset -- the index in the word to start comparing at
+     * @return -- the number of matching characters
+     */
+    private static int commonPrefixLength(String label, String word, int offset) {
+        int max = Math.min(label.length(), word.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == word.charAt(offset + i)) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * A node in the trie, along with the label of the edge leading into it
+     */
+    private static class Node {
+
+        private String label;
+        private boolean terminal;
+        private Node[] children;
+        private int childCount;
+
+        /**
+         * Constructs a new Node
+         * @param label -- the label of the edge leading into this node
+         * @param terminal -- whether a word ends at this node
+         */
+        private Node(String label, boolean terminal) {
+            this.label = label;
+            this.terminal = terminal;
+        }
+
+        /**
+         * Binary searches the children for the one whose label starts with the given character
+         * @param c -- the first character of the label
+         * @return -- the index of the child, or (-(insertion point) - 1) if there is none
+         */
+        private int findChild(char c) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                }
+                else if (midChar > c) {
+                    high = mid - 1;
+                }
+                else {
+                    return mid;
+                }
+            }
+
+            return -(low + 1);
+        }
+
+        /**
+         * Inserts a child at the given index, keeping the children sorted
+         * @param index -- the index to insert at
+         * @param child -- the new child
+         */
+        private void addChild(int index, Node child) {
+            if (children == null) {
+                children = new Node[2];
+            }
+            else if (childCount == children.length) {
+                Node[] newChildren = new Node[children.length * 2];
+                System.arraycopy(children, 0, newChildren, 0, childCount);
+                children = newChildren;
+            }
+
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+
+        /**
+         * Removes the child at the given index
+         * @param index -- the index of the child to remove
+         */
+        private void removeChild(int index) {
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        /**
+         * Merges this node's only child into it, joining their edge labels
+         */
+        private void absorbOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            terminal = child.terminal;
+            children = child.children;
+            childCount = child.childCount;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package comprehensive;
+
+import java.util.List;
+
+/**
+ * This class represents one page of the words returned by a range query.
+ * When more words remain in the range, the page carries a resume token
+ * (the last word on the page) that can be passed back to fetch the next page.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class RangePage {
+
+    private final List<String> words;
+    private final String resumeToken;
+
+    /**
+     * Constructs a new RangePage
+     * @param words -- the words on this page, in sorted order
+     * @param resumeToken -- the token for the next page, or null if this is the last page
+     */
+    public RangePage(List<String> words, String resumeToken) {
+        this.words = words;
+        this.resumeToken = resumeToken;
+    }
+
+    /**
+     * Getter for the words on this page
+     * @return -- the words on this page, in sorted order
+     */
+    public List<String> getWords() {
+        return words;
+    }
+
+    /**
+     * Getter for the resume token
+     * @return -- the token to pass back for the next page, or null if this is the last page
+     */
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Returns true if there are more words in the range after this page.
+     */
+    public boolean hasMore() {
+        return resumeToken != null;
+    }
+}
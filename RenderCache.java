@@ -0,0 +1,136 @@
+package comprehensive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents a bounded cache of the text that option3 and option6
+ * render for a word, so that repeated lookups of the same few hot words do not
+ * format their entries again. Words are evicted least recently used first
+ * once more than the capacity are cached, and a word's cached text is dropped
+ * whenever an edit touches that word.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class RenderCache {
+
+    /**
+     * The option3 output for a word on its own
+     */
+    static final int DEFINITIONS = 0;
+
+    /**
+     * The option3 output for a word with a "Back to main menu" choice, as used by options 7 and 8
+     */
+    static final int DEFINITIONS_MENU = 1;
+
+    /**
+     * The option6 output for a word
+     */
+    static final int PARTS_OF_SPEECH = 2;
+
+    private static final int KINDS = 3;
+
+    private final int capacity;
+    private final LinkedHashMap<String, String[]> rendered;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Constructs a new, empty RenderCache
+     * @param capacity -- the largest number of words to keep rendered text for
+     */
+    public RenderCache(int capacity) {
+        this.capacity = capacity;
+
+        // Access order moves a word to the back on every get, so the eldest is the least recently used
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                return size() > RenderCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Getter for the capacity
+     * @return -- the largest number of words kept
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of words with rendered text in the cache
+     * @return -- the number of cached words
+     */
+    public int size() {
+        return rendered.size();
+    }
+
+    /**
+     * Gets the number of lookups that found rendered text
+     * @return -- the number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that had to render the text
+     * @return -- the number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the rendered text of one kind for a word, counting the lookup as a hit or a miss
+     * @param word -- the word
+     * @param kind -- DEFINITIONS, DEFINITIONS_MENU or PARTS_OF_SPEECH
+     * @return -- the rendered text, or null if it is not cached
+     */
+    String get(String word, int kind) {
+        String[] texts = rendered.get(word);
+        String text = texts == null ? null : texts[kind];
+        if (text == null) {
+            missCount++;
+        }
+        else {
+            hitCount++;
+        }
+
+        return text;
+    }
+
+    /**
+     * Caches the rendered text of one kind for a word
+     * @param word -- the word
+     * @param kind -- DEFINITIONS, DEFINITIONS_MENU or PARTS_OF_SPEECH
+     * @param text -- the rendered text
+     */
+    void put(String word, int kind, String text) {
+        String[] texts = rendered.get(word);
+        if (texts == null) {
+            texts = new String[KINDS];
+            rendered.put(word, texts);
+        }
+        texts[kind] = text;
+    }
+
+    /**
+     * Drops every rendered text for a word, after an edit has touched it
+     * @param word -- the word
+     */
+    void invalidate(String word) {
+        rendered.remove(word);
+    }
+
+    /**
+     * Drops every rendered text, after the glossary's contents have been replaced
+     */
+    void clear() {
+        rendered.clear();
+    }
+}
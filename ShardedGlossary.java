@@ -0,0 +1,691 @@
+package comprehensive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class represents a glossary split by key range into shards, each a
+ * Glossary with its own map and counters, so that loading and wide scans can
+ * use every core. Shard i holds the words from boundary i - 1 (inclusive) up
+ * to boundary i (exclusive), and a word is routed to its shard by a binary
+ * search of the boundaries.
+ * <p>
+ * Loading parses newline-aligned chunks of the file in parallel, sorting each
+ * line into a bucket for its shard, and then fills every shard from its buckets
+ * in parallel. Before a load, the boundaries are rebalanced so that the shards
+ * hold about the same number of definitions, using words sampled from evenly
+ * spaced points in the file along with the words already in the glossary.
+ * option2 scans the shards overlapping its range in parallel and joins their
+ * words in order, and option1 adds up the shards' counters. Every other option
+ * runs on the one shard holding its word. Like Glossary, a ShardedGlossary
+ * must only be used from one thread at a time.
+ *
+ * @author Peter Giolas and Thomas Lu
+ * @version 12/06/2024
+ */
+public class ShardedGlossary {
+
+    // How many lines are sampled from a file to place the shard boundaries
+    private static final int SAMPLE_LINES = 4096;
+
+    // How many bytes are read at each sample point to find a whole line
+    private static final int SAMPLE_WINDOW = 4096;
+
+    private final int maxShards;
+    private final ForkJoinPool pool;
+    private Glossary[] shards;
+    private String[] boundaries;
+    private ArrayList<Long> malformedLineOffsets;
+
+    /**
+     * Constructs a new, empty ShardedGlossary with one shard per available processor,
+     * working on the common fork-join pool
+     */
+    public ShardedGlossary() {
+        this(Runtime.getRuntime().availableProcessors(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new, empty ShardedGlossary
+     * @param maxShards -- the number of shards to split the words into once they are loaded
+     * @param pool -- the pool to load files and scan shards on
+     */
+    public ShardedGlossary(int maxShards, ForkJoinPool pool) {
+        if (maxShards < 1) {
+            throw new IllegalArgumentException("There must be at least one shard");
+        }
+
+        this.maxShards = maxShards;
+        this.pool = pool;
+        this.shards = new Glossary[] {new Glossary()};
+        this.boundaries = new String[0];
+        this.malformedLineOffsets = new ArrayList<>();
+    }
+
+    /**
+     * Gets the number of shards the words are currently split into
+     * @return -- the number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the number of definitions in each shard, to show how evenly they are balanced
+     * @return -- the definition counts, in shard order
+     */
+    public int[] getShardDefCounts() {
+        int[] counts = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            counts[i] = shards[i].getDefCount();
+        }
+
+        return counts;
+    }
+
+    /**
+     * Getter for the number of words
+     * @return -- the number of words across every shard
+     */
+    public int getWordCount() {
+        int count = 0;
+        for (Glossary shard : shards) {
+            count += shard.getWordCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Getter for the number of definitions
+     * @return -- the number of definitions across every shard
+     */
+    public int getDefCount() {
+        int count = 0;
+        for (Glossary shard : shards) {
+            count += shard.getDefCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the byte offsets of every malformed line skipped while populating the glossary
+     * @return -- the offsets of the skipped lines, in file order for each file loaded
+     */
+    public List<Long> getMalformedLineOffsets() {
+        return malformedLineOffsets;
+    }
+
+    /**
+     * Populates the glossary from a given file path, rebalancing the shards first.
+     * Lines that are missing a :: separator are skipped, and their byte
+     * offsets are available from getMalformedLineOffsets
+     * @param filename -- the given file path
+     * @throws IOException -- if the given file path is invalid
+     */
+    public void populateGlossary(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+
+            String[] newBoundaries = balanceBoundaries(channel);
+            int shardCount = newBoundaries.length + 1;
+
+            // Parse the file and move the words already loaded into buckets for the new shards
+            long[] chunks = Glossary.findChunkBoundaries(channel, pool.getParallelism());
+            ArrayList<Callable<Buckets>> bucketTasks = new ArrayList<>();
+            for (int i = 0; i < chunks.length - 1; i++) {
+                long start = chunks[i];
+                long end = chunks[i + 1];
+                bucketTasks.add(() -> parseChunk(channel, start, end, newBoundaries));
+            }
+            for (Glossary shard : shards) {
+                bucketTasks.add(() -> redistribute(shard, newBoundaries));
+            }
+            List<Buckets> buckets;
+            try {
+                buckets = invokeAll(bucketTasks);
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Fill each new shard from its bucket in every result
+            ArrayList<Callable<Glossary>> shardTasks = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                int shard = i;
+                shardTasks.add(() -> {
+                    HashMap<String, ArrayList<Entry>> words = new HashMap<>();
+                    for (Buckets result : buckets) {
+                        for (Map.Entry<String, ArrayList<Entry>> batch : result.words[shard].entrySet()) {
+                            ArrayList<Entry> entries = words.putIfAbsent(batch.getKey(), batch.getValue());
+                            if (entries != null) {
+                                entries.addAll(batch.getValue());
+                            }
+                        }
+                    }
+
+                    Glossary glossary = new Glossary();
+                    glossary.absorbEntries(words);
+                    return glossary;
+                });
+            }
+
+            shards = invokeAll(shardTasks).toArray(new Glossary[0]);
+            boundaries = newBoundaries;
+
+            ArrayList<Long> malformed = new ArrayList<>();
+            for (Buckets result : buckets) {
+                malformed.addAll(result.malformedOffsets);
+            }
+            Collections.sort(malformed);
+            malformedLineOffsets.addAll(malformed);
+        }
+    }
+
+    /**
+     * Gets the metadata for the glossary
+     * @return -- the metadata
+     */
+    public String option1() {
+        String firstKey = " ";
+        String lastKey = " ";
+        Glossary first = firstShard();
+        if (first != null) {
+            firstKey = first.getGlossary().firstKey();
+            lastKey = lastShard().getGlossary().lastKey();
+        }
+
+        int partsOfSpeech = 0;
+        for (PartOfSpeech partOfSpeech : PartOfSpeech.values()) {
+            for (Glossary shard : shards) {
+                if (shard.getPartOfSpeechCount(partOfSpeech) != 0) {
+                    partsOfSpeech++;
+                    break;
+                }
+            }
+        }
+
+        return Glossary.formatMetadata(getWordCount(), getDefCount(), partsOfSpeech, firstKey, lastKey);
+    }
+
+    /**
+     * Gets all words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @return -- all words between the starting and end word
+     * @throws IllegalArgumentException -- if the starting word comes after the end word
+     */
+    public String option2(String start, String end) {
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+
+        int first = shardIndex(start);
+        int last = shardIndex(end);
+
+        StringBuilder returnString = new StringBuilder();
+        returnString.append("The words between ").append(start).append(" and ").append(end).append(" are - ");
+
+        if (first == last) {
+            appendWords(shards[first], start, end, returnString);
+            return returnString.toString();
+        }
+
+        ArrayList<Callable<StringBuilder>> tasks = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            Glossary shard = shards[i];
+            tasks.add(() -> appendWords(shard, start, end, new StringBuilder()));
+        }
+        for (StringBuilder words : invokeAll(tasks)) {
+            returnString.append(words);
+        }
+
+        return returnString.toString();
+    }
+
+    /**
+     * Gets one page of the words between a given starting and end word
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param resumeToken -- the resume token from the previous page, or null for the first page
+     * @param pageSize -- the maximum number of words on the page
+     * @return -- the page of words, along with the token for the next page
+     * @throws IllegalArgumentException -- if the starting word comes after the end word,
+     *                                  or if the page size is not positive
+     */
+    public RangePage option2Page(String start, String end, String resumeToken, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+
+        String from = start;
+        boolean inclusive = true;
+        if (resumeToken != null && resumeToken.compareTo(start) >= 0) {
+            if (resumeToken.compareTo(end) >= 0) {
+                return new RangePage(new ArrayList<>(), null);
+            }
+            from = resumeToken;
+            inclusive = false;
+        }
+
+        // Take one word more than the page holds, to learn whether another page follows
+        ArrayList<String> words = new ArrayList<>(Math.min(pageSize, 1024));
+        for (int i = shardIndex(from); i <= shardIndex(end) && words.size() <= pageSize; i++) {
+            for (String key : shards[i].getGlossary().subMap(from, inclusive, end, true).keySet()) {
+                if (words.size() > pageSize) {
+                    break;
+                }
+                words.add(key);
+            }
+        }
+
+        String nextToken = null;
+        if (words.size() > pageSize) {
+            words.remove(pageSize);
+            nextToken = words.get(pageSize - 1);
+        }
+
+        return new RangePage(words, nextToken);
+    }
+
+    /**
+     * Gets all entries for a given word
+     * @param word -- the word to find all entries for
+     * @param standalone -- whether the output is part of an option 7 or 8 input
+     * @return -- all entries for a given word
+     */
+    public String option3(String word, boolean standalone) {
+        return shardFor(word).option3(word, standalone);
+    }
+
+    /**
+     * Gets all entries for the first word in the glossary
+     * @return -- all entries for the first word in the glossary
+     */
+    public String option4() {
+        Glossary first = firstShard();
+        return first == null ? "The glossary is empty." : first.option4();
+    }
+
+    /**
+     * Gets all entries for the last word in the glossary
+     * @return -- all entries for the last word in the glossary
+     */
+    public String option5() {
+        Glossary last = lastShard();
+        return last == null ? "The glossary is empty." : last.option5();
+    }
+
+    /**
+     * Gets all unique parts of speech for a given word
+     * @param word -- the given word
+     * @return -- all parts of speech
+     */
+    public String option6(String word) {
+        return shardFor(word).option6(word);
+    }
+
+    /**
+     * Updates a definition for a given word, selecting from all definitions for the word
+     * @param word -- the word whose definition to update
+     * @param numToUpdate -- the number (essentially index) of the definition to update
+     * @param newDefinition -- the new definition
+     * @return -- output information after updating the definition
+     */
+    public String option7(String word, int numToUpdate, String newDefinition) {
+        return shardFor(word).option7(word, numToUpdate, newDefinition);
+    }
+
+    /**
+     * Deletes a definition for a given word,
+     * selecting from all definitions for the word.
+     * If the deletion results in no definitions for
+     * a word, it is deleted from the glossary.
+     * @param word -- the word to delete a definition from
+     * @param numToRemove -- the "index" of the definition to remove
+     * @return -- log information after deleting the definition
+     */
+    public String option8(String word, int numToRemove) {
+        return shardFor(word).option8(word, numToRemove);
+    }
+
+    /**
+     * Adds a new definition for a given word
+     * @param word -- the given word
+     * @param partOfSpeech -- the new Entry's part of speech
+     * @param definition -- the new Entry's definition
+     * @return -- log information after adding the new Entry
+     */
+    public String option9(String word, String partOfSpeech, String definition) {
+        return shardFor(word).option9(word, partOfSpeech, definition);
+    }
+
+    /**
+     * Saves the glossary to a given file path, writing the shards one after another
+     * @param filename -- the file path and name of which is given by the user
+     * @return -- log information after saving the glossary
+     * @throws IOException -- if the glossary could not be written to the given file path
+     */
+    public String option10(String filename) throws IOException {
+        Glossary[] current = shards;
+        Iterable<Map.Entry<String, SortedArrayList<Entry>>> words = () -> new Iterator<>() {
+
+            private int shard;
+            private Iterator<Map.Entry<String, SortedArrayList<Entry>>> iterator = current[0].getGlossary().entrySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!iterator.hasNext() && shard + 1 < current.length) {
+                    shard++;
+                    iterator = current[shard].getGlossary().entrySet().iterator();
+                }
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, SortedArrayList<Entry>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iterator.next();
+            }
+        };
+
+        new GlossaryWriter().save(words, Paths.get(filename));
+
+        return String.format("Successfully saved dictionary to %s", filename);
+    }
+
+    /**
+     * Finds the index of the shard that holds a word
+     * @param word -- the word
+     * @return -- the index of its shard
+     */
+    private int shardIndex(String word) {
+        return shardIndex(boundaries, word);
+    }
+
+    /**
+     * Finds the index of the shard that holds a word
+     * @param boundaries -- the shard boundaries
+     * @param word -- the word
+     * @return -- the index of its shard
+     */
+    private static int shardIndex(String[] boundaries, String word) {
+        int index = Arrays.binarySearch(boundaries, word);
+
+        // A word equal to a boundary starts the shard after it
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Finds the shard that holds a word
+     * @param word -- the word
+     * @return -- its shard
+     */
+    private Glossary shardFor(String word) {
+        return shards[shardIndex(word)];
+    }
+
+    /**
+     * Finds the first shard holding any words
+     * @return -- the shard, or null if the glossary is empty
+     */
+    private Glossary firstShard() {
+        for (Glossary shard : shards) {
+            if (shard.getWordCount() != 0) {
+                return shard;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the last shard holding any words
+     * @return -- the shard, or null if the glossary is empty
+     */
+    private Glossary lastShard() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            if (shards[i].getWordCount() != 0) {
+                return shards[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Appends the words of one shard that fall between a starting and end word, as option2 lists them
+     * @param shard -- the shard
+     * @param start -- the starting word
+     * @param end -- the end word
+     * @param out -- the builder to append to
+     * @return -- the builder
+     */
+    private static StringBuilder appendWords(Glossary shard, String start, String end, StringBuilder out) {
+        for (String key : shard.getGlossary().subMap(start, true, end, true).keySet()) {
+            out.append("\n       ").append(key);
+        }
+
+        return out;
+    }
+
+    /**
+     * Picks shard boundaries that split the definitions already loaded, together with those in a
+     * file about to be loaded, into equal parts, using weighted samples of the words from each
+     * @param channel -- the channel of the file about to be loaded
+     * @return -- the boundaries, in increasing order and with no duplicates
+     * @throws IOException -- if the file could not be read
+     */
+    private String[] balanceBoundaries(FileChannel channel) throws IOException {
+        ArrayList<String> sampleWords = new ArrayList<>();
+        ArrayList<Double> sampleWeights = new ArrayList<>();
+
+        // Sample lines from evenly spaced points in the file, and estimate how many lines it has from their length
+        long fileSize = channel.size();
+        int points = (int) Math.min(SAMPLE_LINES, fileSize / 64 + 1);
+        ByteBuffer window = ByteBuffer.allocate(SAMPLE_WINDOW);
+        LineParser parser = new LineParser();
+        long sampledBytes = 0;
+        ArrayList<String> fileWords = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            long position = fileSize * i / points;
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                continue;
+            }
+
+            // Skip the rest of the line the point falls in, unless the point is a line start
+            int lineStart = 0;
+            if (position > 0) {
+                while (lineStart < read && window.get(lineStart) != '\n') {
+                    lineStart++;
+                }
+                lineStart++;
+            }
+            if (lineStart >= read) {
+                continue;
+            }
+            int lineEnd = lineStart;
+            while (lineEnd < read && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd >= read && position + read < fileSize) {
+                continue;
+            }
+
+            parser.parse(window.duplicate().position(lineStart).limit(lineEnd), position + lineStart,
+                    (word, partOfSpeech, definition) -> fileWords.add(word));
+            sampledBytes += lineEnd - lineStart + 1;
+        }
+
+        if (!fileWords.isEmpty()) {
+            double estimatedLines = (double) fileSize * fileWords.size() / Math.max(1, sampledBytes);
+            for (String word : fileWords) {
+                sampleWords.add(word);
+                sampleWeights.add(estimatedLines / fileWords.size());
+            }
+        }
+
+        // Sample the words already loaded, each standing for the definitions of the words between samples
+        int loaded = getWordCount();
+        int step = Math.max(1, loaded / SAMPLE_LINES);
+        double weight = (double) getDefCount() / Math.max(1, loaded) * step;
+        int index = 0;
+        for (Glossary shard : shards) {
+            for (String word : shard.getGlossary().keySet()) {
+                if (index++ % step == 0) {
+                    sampleWords.add(word);
+                    sampleWeights.add(weight);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[sampleWords.size()];
+        double total = 0;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            total += sampleWeights.get(i);
+        }
+        Arrays.sort(order, Comparator.comparing(sampleWords::get));
+
+        // Cut wherever the running weight passes the next equal share
+        ArrayList<String> cuts = new ArrayList<>(maxShards - 1);
+        double running = 0;
+        for (Integer sample : order) {
+            String word = sampleWords.get(sample);
+            if (cuts.size() < maxShards - 1 && running >= total * (cuts.size() + 1) / maxShards
+                    && (cuts.isEmpty() || word.compareTo(cuts.get(cuts.size() - 1)) > 0)) {
+                cuts.add(word);
+            }
+            running += sampleWeights.get(sample);
+        }
+
+        return cuts.toArray(new String[0]);
+    }
+
+    /**
+     * Parses one newline-aligned chunk of a memory-mapped glossary file into buckets by shard
+     * @param channel -- the channel of the file being loaded
+     * @param start -- the byte offset of the start of the chunk
+     * @param end -- the byte offset just past the end of the chunk
+     * @param boundaries -- the boundaries of the shards being loaded
+     * @return -- the parsed words, entries and malformed line offsets
+     * @throws IOException -- if the chunk could not be mapped
+     */
+    private static Buckets parseChunk(FileChannel channel, long start, long end, String[] boundaries) throws IOException {
+        Buckets result = new Buckets(boundaries);
+        if (end <= start) {
+            return result;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        LineParser parser = new LineParser();
+        parser.parse(buffer, start, (word, partOfSpeech, definition) -> result.add(word, new Entry(partOfSpeech, definition)));
+        result.malformedOffsets.addAll(parser.getMalformedOffsets());
+
+        return result;
+    }
+
+    /**
+     * Sorts the words of an existing shard into buckets by the shard they belong to under new boundaries
+     * @param shard -- the existing shard
+     * @param boundaries -- the new boundaries
+     * @return -- the shard's words and entries
+     */
+    private static Buckets redistribute(Glossary shard, String[] boundaries) {
+        Buckets result = new Buckets(boundaries);
+        for (Map.Entry<String, SortedArrayList<Entry>> word : shard.getGlossary().entrySet()) {
+            ArrayList<Entry> entries = new ArrayList<>(word.getValue().size());
+            for (Entry entry : word.getValue()) {
+                entries.add(entry);
+            }
+            result.words[shardIndex(boundaries, word.getKey())].put(word.getKey(), entries);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs tasks on the pool and gathers their results in order
+     * @param tasks -- the tasks
+     * @return -- the results, in the order of the tasks
+     * @throws UncheckedIOException -- if a task failed with an IOException
+     */
+    private <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        ArrayList<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        return results;
+    }
+
+    /**
+     * The words and entries found by one task, with a map for each shard they belong to
+     */
+    private static class Buckets {
+
+        private final String[] boundaries;
+        private final HashMap<String, ArrayList<Entry>>[] words;
+        private final ArrayList<Long> malformedOffsets = new ArrayList<>();
+
+        /**
+         * Constructs a new, empty Buckets
+         * @param boundaries -- the boundaries of the shards
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Buckets(String[] boundaries) {
+            this.boundaries = boundaries;
+            this.words = new HashMap[boundaries.length + 1];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = new HashMap<>();
+            }
+        }
+
+        /**
+         * Adds a parsed entry to its shard's bucket
+         * @param word -- the parsed word
+         * @param entry -- the parsed entry
+         */
+        private void add(String word, Entry entry) {
+            HashMap<String, ArrayList<Entry>> bucket = words[shardIndex(boundaries, word)];
+            ArrayList<Entry> entries = bucket.get(word);
+            if (entries == null) {
+                entries = new ArrayList<>(2);
+                bucket.put(word, entries);
+            }
+            entries.add(entry);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package comprehensive;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 /**
  * This class represents an array that maintains its elements
@@ -11,18 +14,42 @@ import java.util.NoSuchElementException;
  */
 public class SortedArrayList<Type extends Comparable<? super Type>> implements Iterable<Type> {
 
-    private Comparator<? super Type> cmp;
+    private final Comparator<? super Type> cmp;
     private Object[] array;
     private int size;
 
     /**
      * Constructor for a new SortedArrayList object that
-     * initializes the backing array.
+     * initializes the backing array and keeps its items
+     * in their natural order.
      */
     public SortedArrayList() {
+        this(Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructor for a new SortedArrayList object that
+     * initializes the backing array and keeps its items
+     * in the order given by a comparator.
+     * @param cmp the comparator that orders the items
+     */
+    public SortedArrayList(Comparator<? super Type> cmp) {
+        this.cmp = cmp;
         this.array = new Object[16];
     }
 
+    /**
+     * Constructor for a new SortedArrayList object that
+     * holds the same items as another SortedArrayList.
+     * @param other the SortedArrayList to copy
+     */
+    public SortedArrayList(SortedArrayList<Type> other) {
+        this.cmp = other.cmp;
+        this.array = new Object[Math.max(16, other.size)];
+        System.arraycopy(other.array, 0, this.array, 0, other.size);
+        this.size = other.size;
+    }
+
     /**
      * Removes all items from this array. The array will be empty after this method
      * call.
@@ -41,17 +68,64 @@ public class SortedArrayList<Type extends Comparable<? super Type>> implements I
      *         otherwise, returns false
      */
     public boolean contains(Type element) {
-    	if(size == 0)
-        {
-    		return false;
-    	}
-        if (getItemAtIndex(binarySearch(element)) == null) {
-            return false;
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Determines if there is an item in this array that a comparator considers
+     * equal to the specified item. The comparator must agree with this array's
+     * order, though it may compare fewer fields, such as only an Entry's part of speech.
+     *
+     * @param element - the item sought in this array
+     * @param comparator - the comparator used to match items
+     * @return true if there is a matching item in this array; otherwise, returns false
+     */
+    public boolean contains(Type element, Comparator<? super Type> comparator) {
+        return indexOf(element, comparator) >= 0;
+    }
+
+    /**
+     * Finds the index of the first item in this array that is equal to the specified item.
+     *
+     * @param element - the item sought in this array
+     * @return the index of the item, if it is in this array; otherwise,
+     *         (-(insertion point) - 1), as with Arrays.binarySearch
+     */
+    public int indexOf(Type element) {
+        return indexOf(element, cmp);
+    }
+
+    /**
+     * Finds the index of the first item in this array that a comparator considers
+     * equal to the specified item. The comparator must agree with this array's
+     * order, though it may compare fewer fields.
+     *
+     * @param element - the item sought in this array
+     * @param comparator - the comparator used to match items
+     * @return the index of the first matching item, if there is one; otherwise,
+     *         (-(insertion point) - 1), as with Arrays.binarySearch
+     */
+    public int indexOf(Type element, Comparator<? super Type> comparator) {
+        int index = binarySearch(element, comparator, false);
+        if (index < size && comparator.compare(getItemAtIndex(index), element) == 0) {
+            return index;
         }
-        else {
-            return compare(getItemAtIndex(binarySearch(element)), element) == 0;
+
+        return -(index + 1);
+    }
+
+    /**
+     * Returns the item at the given index in sorted order.
+     *
+     * @param index - the index of the item
+     * @throws IndexOutOfBoundsException if the index is not between 0 and size() - 1
+     */
+    public Type get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
         }
 
+        return getItemAtIndex(index);
     }
 
     /**
@@ -62,42 +136,105 @@ public class SortedArrayList<Type extends Comparable<? super Type>> implements I
      *         the input item was actually inserted); otherwise, returns false
      */
     public void insert(Type element) {
-    	int insertIndex = 0;
-    	if(size > 0)
-    	{
-    		insertIndex = this.binarySearch(element);
-    	} 
+        int insertIndex = binarySearch(element, cmp, true);
+        ensureCapacity(size + 1);
+        System.arraycopy(this.array, insertIndex, this.array, insertIndex + 1, size - insertIndex);
+        this.array[insertIndex] = element;
         size++;
 
-        if (size > array.length) {
+    }
 
-            Object[] newArray = new Object[array.length * 2];
-            for (int i = 0; i < this.array.length; i++) {
-                newArray[i] = this.array[i];
+    /**
+     * Inserts every item in an unsorted batch, sorting the batch once and
+     * merging it in with a single linear pass instead of inserting items one at a time.
+     * Items already in this array stay in front of equal items from the batch.
+     *
+     * @param batch - the items to insert, in any order
+     */
+    public void insertAll(Collection<? extends Type> batch) {
+        Object[] sorted = batch.toArray();
+        Arrays.sort(sorted, this::compareObjects);
+        mergeSortedArray(sorted, sorted.length);
+    }
+
+    /**
+     * Inserts every item of another SortedArrayList with a single linear merge pass.
+     * The other list must be sorted in the same order as this one.
+     *
+     * @param other - the sorted items to insert
+     */
+    public void merge(SortedArrayList<? extends Type> other) {
+        mergeSortedArray(other.array, other.size);
+    }
+
+    /**
+     * Removes every item that matches a predicate, compacting the array in one pass.
+     *
+     * @param filter - returns true for the items to remove
+     * @return the number of items removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super Type> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Object item = array[i];
+            if (!filter.test((Type) item)) {
+                array[kept++] = item;
             }
+        }
 
-            this.array = newArray;
+        int removed = size - kept;
+        Arrays.fill(array, kept, size, null);
+        size = kept;
+        return removed;
+    }
 
+    /**
+     * Merges a sorted run of items into the backing array, filling it from the
+     * back so no temporary array is needed. Items already in this array stay in
+     * front of equal items from the run, matching the order insert gives.
+     *
+     * @param other - the backing array of the sorted run
+     * @param otherSize - the number of items in the run
+     */
+    private void mergeSortedArray(Object[] other, int otherSize) {
+        if (otherSize == 0) {
+            return;
         }
-        for (int i = size - 1; i > insertIndex; i--) {
-            this.array[i] = this.array[i - 1];
+
+        ensureCapacity(size + otherSize);
+
+        int i = size - 1;
+        int j = otherSize - 1;
+        int k = size + otherSize - 1;
+        while (j >= 0) {
+            if (i >= 0 && compareObjects(array[i], other[j]) > 0) {
+                array[k--] = array[i--];
+            }
+            else {
+                array[k--] = other[j--];
+            }
         }
 
-        this.array[insertIndex] = element;
+        size += otherSize;
+    }
 
+    /**
+     * Grows the backing array, at least doubling it, so it can hold the given number of items.
+     *
+     * @param capacity - the number of items the array must be able to hold
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > array.length) {
+            this.array = Arrays.copyOf(this.array, Math.max(capacity, array.length * 2));
+        }
     }
 
     /**
      * Returns true if this array contains no items.
      */
     public boolean isEmpty() {
-    	for (Object o: this.array) {
-            if (o != null) {
-                return false;
-            }
-        }
-
-        return true;
+        return size == 0;
     }
 
     /**
@@ -140,53 +277,49 @@ public class SortedArrayList<Type extends Comparable<? super Type>> implements I
      * order.
      */
     public Object[] toArray() {
-        Object[] returnArray = new Object[size];
-        
-        for(int index = 0; index < size; index ++)
-        {
-        	returnArray[index] = getItemAtIndex(index);
-        }
-        
-        return returnArray;
+        return Arrays.copyOf(array, size);
     }
 
     /**
      * Runs binary search on the backing array in order
-     * to locate the proper index for the passed in goal.
+     * to locate the proper index for the passed in goal,
+     * making a single comparison per probe.
      *
      * @param goal the item being binary searched for
-     * @return the index of the goal in the array, if it is in the array
-     *         the index for where the goal should be in the array, if it
-     *         is not currently in the array.
+     * @param comparator the comparator used to compare items with the goal
+     * @param afterEqual whether to return the index after any items equal to
+     *        the goal, rather than the index of the first of them
+     * @return the index of the first item greater than or equal to the goal
+     *         (or greater than the goal, if afterEqual), which is size if there
+     *         is no such item
      */
-    private int binarySearch(Type goal) {
-    	if(size == 0)
-    	{
-    		return -1;
-    	}
-    	
-      if (this.compare(goal, getItemAtIndex(size - 1)) > 0) {
-            return size;
-        }
-        
-        int low = 0, high = size - 1, mid = 0;
-        while(low <= high) {
-            mid = (low + high) / 2;
-
-            if(this.compare(goal, getItemAtIndex(mid)) == 0)
-                break;
-            else if(this.compare(goal, getItemAtIndex(mid)) < 0)
-                high = mid - 1;
-            else
+    private int binarySearch(Type goal, Comparator<? super Type> comparator, boolean afterEqual) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparator.compare(getItemAtIndex(mid), goal);
+            if (comparison < 0 || (afterEqual && comparison == 0)) {
                 low = mid + 1;
-
-            if ((mid >= 1) && this.compare(goal, getItemAtIndex(mid - 1)) > 0
-            && (this.compare(goal, getItemAtIndex(mid)) < 0)) {
-                return mid;
             }
-
+            else {
+                high = mid;
+            }
         }
-        return mid;
+
+        return low;
+    }
+
+    /**
+     * Compare two items taken straight from a backing array, casting them to Type
+     * @param o1 the first item
+     * @param o2 the second item
+     * @return a numerical value that represents which item should canonically
+     * come first.
+     */
+    @SuppressWarnings("unchecked")
+    private int compareObjects(Object o1, Object o2) {
+        return compare((Type) o1, (Type) o2);
     }
 
     /**
@@ -197,49 +330,34 @@ public class SortedArrayList<Type extends Comparable<? super Type>> implements I
      * come first.
      */
     private int compare(Type o1, Type o2) {
-
-        boolean useComparator = (this.cmp != null);
-
-        if (useComparator) {
-            return this.cmp.compare(o1, o2);
-        }
-        else {
-            return o1.compareTo(o2);
-        }
-
+        return this.cmp.compare(o1, o2);
     }
 
     /**
      * Private helper method that gets the Object from the backing array
-     * at a given index, with the correct Type.
+     * at a given index, with the correct Type. The index is not checked,
+     * so callers must keep it between 0 and size - 1.
      * @param index the index of the item to locate
      * @return the item to be located, with the correct Type (not Object)
      */
     @SuppressWarnings("unchecked")
     private Type getItemAtIndex(int index) {
-        if (this.isEmpty() || index < 0 || index > this.size - 1) {
-            return null;
-        }
-        else {
-            return (Type) (array[index]);
-        }
+        return (Type) (array[index]);
     }
 
     public Type remove(int index)
     {
-        Object removed = array[index];
-        if(removed == null)
+        if(index < 0 || index >= size)
         {
             return null;
         }
-        array[index] = null;
 
-        for(int i = index + 1; i < size; i ++)
-        {
-            array[i - 1] = array[i];
-        }
+        Object removed = array[index];
 
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
         size--;
+        array[size] = null;
+
         return (Type) removed;
     }
 
@@ -258,6 +376,9 @@ public class SortedArrayList<Type extends Comparable<? super Type>> implements I
 
         @Override
         public Type next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
             Type next = (Type) array[index];
             index++;
             return next;
@@ -0,0 +1,46 @@
+package comprehensive.timing;
+
+/**
+ * Abstract class for a benchmark run by BenchmarkHarness. The harness calls
+ * setup once for each glossary size and key distribution, then calls
+ * runOperation repeatedly, first to warm up and then to measure.
+ */
+public abstract class Benchmark {
+    protected String name;
+
+    /**
+     * Constructor to build a named benchmark.
+     * @param name - the name shown in the results
+     */
+    public Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Getter for the benchmark's name
+     * @return the benchmark's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Abstract method for setting up the state the operation runs against.
+     * @param size - the glossary size for this run
+     * @param distribution - the distribution for picking keys
+     */
+    protected abstract void setup(int size, KeyDistribution distribution);
+
+    /**
+     * Abstract method to run the operation being measured once. The result is
+     * consumed by the harness so the JIT cannot optimize the operation away.
+     * @return the result of the operation
+     */
+    protected abstract Object runOperation();
+
+    /**
+     * Releases anything created by setup. Does nothing unless overridden.
+     */
+    protected void teardown() {
+    }
+}
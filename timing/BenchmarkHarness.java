@@ -0,0 +1,127 @@
+package comprehensive.timing;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs benchmarks with a timed warmup, then measures them for a fixed time.
+ * Unlike TimingExperiment, every operation runs many times against warmed-up
+ * code, each result is consumed so it cannot be optimized away, and the
+ * report includes throughput, latency percentiles and bytes allocated per
+ * operation (the same quantity as JMH's gc.alloc.rate.norm).
+ */
+public class BenchmarkHarness {
+
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    protected long warmupNanos;
+    protected long measureNanos;
+    private final long[] samples;
+    private final com.sun.management.ThreadMXBean threads;
+
+    // Written with every consumed result so the JIT must compute it
+    private volatile int sink;
+
+    /**
+     * Constructor to build a harness.
+     * @param warmupMillis - how long to run each benchmark before measuring it
+     * @param measureMillis - how long to measure each benchmark
+     */
+    public BenchmarkHarness(long warmupMillis, long measureMillis) {
+        this.warmupNanos = warmupMillis * 1_000_000;
+        this.measureNanos = measureMillis * 1_000_000;
+        this.samples = new long[MAX_SAMPLES];
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Run every benchmark for every size and distribution, printing one row per run.
+     * @param benchmarks - the benchmarks to run
+     * @param sizes - the glossary sizes to run them at
+     * @param distributions - the key distributions to run them with
+     */
+    public void runAll(List<Benchmark> benchmarks, int[] sizes, KeyDistribution[] distributions) {
+        System.out.printf("%-28s %10s %8s %14s %10s %10s %10s %10s %12s%n",
+                "benchmark", "size", "keys", "ops/s", "p50 (ns)", "p90 (ns)", "p99 (ns)", "p99.9 (ns)", "B/op");
+        for (Benchmark benchmark : benchmarks) {
+            for (int size : sizes) {
+                for (KeyDistribution distribution : distributions) {
+                    run(benchmark, size, distribution);
+                }
+            }
+        }
+    }
+
+    /**
+     * Warm up and measure one benchmark at one size and distribution, then print the results.
+     * @param benchmark - the benchmark to run
+     * @param size - the glossary size
+     * @param distribution - the key distribution
+     */
+    public void run(Benchmark benchmark, int size, KeyDistribution distribution) {
+        benchmark.setup(size, distribution);
+
+        try {
+            long end = System.nanoTime() + warmupNanos;
+            while (System.nanoTime() < end) {
+                consume(benchmark.runOperation());
+            }
+
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long operations = 0;
+            long start = System.nanoTime();
+            end = start + measureNanos;
+            long now = start;
+
+            while (now < end) {
+                consume(benchmark.runOperation());
+                long finish = System.nanoTime();
+                if (operations < MAX_SAMPLES) {
+                    samples[(int) operations] = finish - now;
+                }
+                operations++;
+                now = finish;
+            }
+
+            long elapsed = now - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            int sampleCount = (int) Math.min(operations, MAX_SAMPLES);
+            Arrays.sort(samples, 0, sampleCount);
+
+            System.out.printf("%-28s %10d %8s %14.1f %10d %10d %10d %10d %12.1f%n",
+                    benchmark.getName(), size, distribution.name().toLowerCase(),
+                    operations / (elapsed / 1e9),
+                    percentile(sampleCount, 0.50), percentile(sampleCount, 0.90),
+                    percentile(sampleCount, 0.99), percentile(sampleCount, 0.999),
+                    (double) allocated / operations);
+        }
+        finally {
+            benchmark.teardown();
+        }
+    }
+
+    /**
+     * Gets a percentile of the sorted latency samples.
+     * @param sampleCount - the number of samples recorded
+     * @param fraction - the percentile as a fraction, such as 0.99
+     * @return the latency at that percentile, in nanoseconds
+     */
+    private long percentile(int sampleCount, double fraction) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        return samples[Math.min(sampleCount - 1, (int) (fraction * sampleCount))];
+    }
+
+    /**
+     * Consumes a benchmark result so the computation that produced it cannot be removed.
+     * @param result - the result to consume
+     */
+    private void consume(Object result) {
+        sink += System.identityHashCode(result);
+    }
+}
@@ -0,0 +1,182 @@
+package comprehensive.timing;
+
+import comprehensive.ConcurrentGlossary;
+import comprehensive.Entry;
+import comprehensive.Glossary;
+import comprehensive.PartOfSpeech;
+import comprehensive.SortedArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Measures read and write throughput while reader threads look words up with
+ * option3 and one writer thread keeps adding and removing definitions,
+ * where the problem size is the number of reader threads. ConcurrentGlossary
+ * is compared against a plain Glossary guarded by a single lock.
+ */
+public class ConcurrentGlossaryTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "readers";
+    private static int problemSizeMin = 1;
+    private static int problemSizeCount = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static int problemSizeStep = 1;
+    private static int experimentIterationCount = 3;
+    private static int numWords = 200_000;
+    private static int readsPerThread = 200_000;
+    protected static Random rng = new Random();
+    protected Glossary glossary;
+    protected ConcurrentGlossary concurrentGlossary;
+    protected List<String> words;
+    protected boolean locked;
+    protected int readers;
+    protected long writes;
+
+    // The definition the writer adds, then removes again
+    private static final Entry ADDED = new Entry(PartOfSpeech.NOUN, "another definition");
+
+    public ConcurrentGlossaryTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+    }
+
+    public static void main(String[] args) {
+
+        ConcurrentGlossaryTimingExperiment timingExperiment = new ConcurrentGlossaryTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    /**
+     * Run the timing experiment for both glossaries and print their throughput.
+     */
+    @Override
+    protected void printResults() {
+        System.out.println(problemSizeDescription + "\tlocked reads/s\tlocked writes/s\tconcurrent reads/s\tconcurrent writes/s");
+        int size = problemSizeMin;
+        for (int i = 0; i < problemSizeCount; i++) {
+            locked = true;
+            long lockedTime = computeMedianElapsedTime(size);
+            long lockedWrites = writes;
+            locked = false;
+            long concurrentTime = computeMedianElapsedTime(size);
+            long concurrentWrites = writes;
+
+            long reads = (long) size * readsPerThread;
+            System.out.printf("%d\t\t%.0f\t\t%.0f\t\t%.0f\t\t%.0f%n", size,
+                    reads / (lockedTime / 1e9), lockedWrites / (lockedTime / 1e9),
+                    reads / (concurrentTime / 1e9), concurrentWrites / (concurrentTime / 1e9));
+            size += problemSizeStep;
+        }
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+        readers = problemSize;
+        glossary = new Glossary();
+        words = new ArrayList<>();
+
+        List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+        for (int i = 0; i < numWords; i++) {
+            String word = "word" + i;
+            words.add(word);
+            glossary.option9(word, validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size())), "a definition of " + word);
+        }
+
+        concurrentGlossary = new ConcurrentGlossary(glossary);
+    }
+
+    @Override
+    protected void runComputation() {
+        Thread[] threads = new Thread[readers];
+        for (int i = 0; i < readers; i++) {
+            threads[i] = new Thread(this::read);
+            threads[i].start();
+        }
+
+        // The writer runs on this thread until every reader has finished
+        long count = 0;
+        while (anyAlive(threads)) {
+            String word = words.get(ThreadLocalRandom.current().nextInt(words.size()));
+            if (locked) {
+                synchronized (glossary) {
+                    count += write(word, glossary.option9(word, "noun", ADDED.getDefinition()),
+                            glossary.getGlossary().get(word), glossary::option8);
+                }
+            }
+            else {
+                count += write(word, concurrentGlossary.option9(word, "noun", ADDED.getDefinition()),
+                        concurrentGlossary.getEntries(word), concurrentGlossary::option8);
+            }
+        }
+
+        writes = count;
+    }
+
+    /**
+     * Removes the definition that the writer just added, which is not necessarily
+     * the word's first definition
+     * @param word - the word that was given the definition
+     * @param addResult - the result of adding the definition
+     * @param entries - the word's entries after the definition was added
+     * @param option8 - the glossary's option8
+     * @return the number of writes that succeeded
+     */
+    private static int write(String word, String addResult, SortedArrayList<Entry> entries, BiFunction<String, Integer, String> option8) {
+        if (!addResult.startsWith("Successfully added") || entries == null) {
+            return 0;
+        }
+
+        int index = entries.indexOf(ADDED);
+        if (index < 0) {
+            return 1;
+        }
+
+        return option8.apply(word, index + 1).startsWith("Definition removed") ? 2 : 1;
+    }
+
+    /**
+     * Performs readsPerThread random option3 lookups
+     */
+    private void read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int found = 0;
+        for (int i = 0; i < readsPerThread; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            String result;
+            if (locked) {
+                synchronized (glossary) {
+                    result = glossary.option3(word, true);
+                }
+            }
+            else {
+                result = concurrentGlossary.option3(word, true);
+            }
+            found += result.length();
+        }
+
+        // Keep the lookups from being optimized away
+        if (found == 0) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Determines if any of the given threads are still running
+     * @param threads - the threads to check
+     * @return true if at least one thread is still running
+     */
+    private static boolean anyAlive(Thread[] threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,116 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the heap kept alive by a loaded glossary, and the time of a full
+ * garbage collection with it loaded, when definitions are kept as Strings
+ * against when they are stored off-heap in a DefinitionArena.
+ */
+public class DefinitionArenaTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "numEntries";
+    private static int problemSizeMin = 200_000;
+    private static int problemSizeCount = 5;
+    private static int problemSizeStep = 200_000;
+    private static int experimentIterationCount = 5;
+    protected static Random rng = new Random();
+    protected int fileSize = -1;
+    protected File textFile;
+    protected boolean offHeap;
+    protected Glossary glossary;
+    protected long heapUsed;
+
+    public DefinitionArenaTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        try {
+            textFile = File.createTempFile("glossary", ".txt");
+            textFile.deleteOnExit();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+
+        DefinitionArenaTimingExperiment timingExperiment = new DefinitionArenaTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    /**
+     * Run the timing experiment for both storage modes and print their heap use and full GC times.
+     */
+    @Override
+    protected void printResults() {
+        System.out.println(problemSizeDescription + "\theap (bytes)\tgc (ns)\toff-heap heap (bytes)\toff-heap gc (ns)");
+        int size = problemSizeMin;
+        for (int i = 0; i < problemSizeCount; i++) {
+            offHeap = false;
+            long heapTime = computeMedianElapsedTime(size);
+            long heapBytes = heapUsed;
+            offHeap = true;
+            long offHeapTime = computeMedianElapsedTime(size);
+            long offHeapBytes = heapUsed;
+
+            System.out.println(size + "\t\t" + heapBytes + "\t" + heapTime + "\t" + offHeapBytes + "\t\t" + offHeapTime);
+            size += problemSizeStep;
+        }
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+
+        // Writing the file is not timed, so reuse it across iterations of the same size
+        if (problemSize != fileSize) {
+            Glossary source = new Glossary();
+            fileSize = problemSize;
+
+            List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+            for (int i = 0; i < problemSize; i++) {
+                String word = "word" + rng.nextInt(problemSize / 4 + 1);
+                String partOfSpeech = validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size()));
+                source.option9(word, partOfSpeech, "a definition of " + word + " that is about as long as a real one " + i);
+            }
+
+            try {
+                source.option10(textFile.getPath());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        glossary = null;
+        System.gc();
+        long baseline = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+        try {
+            glossary = new Glossary();
+            if (offHeap) {
+                glossary.storeDefinitionsOffHeap();
+            }
+            glossary.populateGlossary(textFile.getPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.gc();
+        heapUsed = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() - baseline;
+    }
+
+    @Override
+    protected void runComputation() {
+        System.gc();
+    }
+
+}
@@ -0,0 +1,340 @@
+package comprehensive.timing;
+
+import comprehensive.Entry;
+import comprehensive.FrozenGlossary;
+import comprehensive.Glossary;
+import comprehensive.PartOfSpeech;
+import comprehensive.SortedArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks populateGlossary, every optionN operation, save, and the
+ * SortedArrayList primitives through BenchmarkHarness, at several glossary
+ * sizes and with both uniform and Zipf-distributed keys.
+ * Pass glossary sizes as arguments to override the defaults.
+ */
+public class GlossaryBenchmarks {
+
+    private static int[] defaultSizes = {1_000, 100_000};
+    private static long warmupMillis = 1_000;
+    private static long measureMillis = 2_000;
+    private static List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+    // The definition added and removed again by the option9 + option8 benchmark
+    private static final Entry TEMPORARY = new Entry(PartOfSpeech.NOUN, "a temporary definition");
+
+    public static void main(String[] args) {
+        int[] sizes = defaultSizes;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new PopulateBenchmark());
+        benchmarks.add(new GlossaryBenchmark("option1") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option1();
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option2 (100 words)") {
+            @Override
+            protected Object runOperation() {
+                int start = sampler.next();
+                return glossary.option2(words[start], words[Math.min(start + 100, words.length - 1)]);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option3") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option3(words[sampler.next()], true);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option4") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option4();
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option5") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option5();
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option6") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option6(words[sampler.next()]);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option7") {
+            @Override
+            protected Object runOperation() {
+                return glossary.option7(words[sampler.next()], 1, "an updated definition");
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("option9 + option8") {
+            @Override
+            protected Object runOperation() {
+
+                // Add then remove the same definition so the glossary keeps its size
+                String word = words[sampler.next()];
+                glossary.option9(word, "noun", TEMPORARY.getDefinition());
+                return glossary.option8(word, glossary.getGlossary().get(word).indexOf(TEMPORARY) + 1);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("searchDefinitions (all)") {
+            @Override
+            protected Object runOperation() {
+                return glossary.searchDefinitions("definition 1 of " + words[sampler.next()], true);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("searchDefinitions (any)") {
+            @Override
+            protected Object runOperation() {
+                return glossary.searchDefinitions(words[sampler.next()] + " " + words[sampler.next()], false);
+            }
+        });
+        benchmarks.add(new GlossaryBenchmark("suggest (one typo)") {
+            @Override
+            protected Object runOperation() {
+                return glossary.suggest(words[sampler.next()].replace('d', 't'), 2, 5);
+            }
+        });
+        benchmarks.add(new FrozenGlossaryBenchmark("FrozenGlossary.option2 (100 words)") {
+            @Override
+            protected Object runOperation() {
+                int start = sampler.next();
+                return frozen.option2(words[start], words[Math.min(start + 100, words.length - 1)]);
+            }
+        });
+        benchmarks.add(new FrozenGlossaryBenchmark("FrozenGlossary.option3") {
+            @Override
+            protected Object runOperation() {
+                return frozen.option3(words[sampler.next()], true);
+            }
+        });
+        benchmarks.add(new FrozenGlossaryBenchmark("FrozenGlossary.option5") {
+            @Override
+            protected Object runOperation() {
+                return frozen.option5();
+            }
+        });
+        benchmarks.add(new SaveBenchmark());
+        benchmarks.add(new SortedArrayListBenchmark("SortedArrayList.contains") {
+            @Override
+            protected Object runOperation() {
+                return list.contains(values[sampler.next()]);
+            }
+        });
+        benchmarks.add(new SortedArrayListBenchmark("SortedArrayList.get") {
+            @Override
+            protected Object runOperation() {
+                return list.get(sampler.next());
+            }
+        });
+        // Keeps 64 items in a backing array grown to the given size, so the cost should not change with size
+        benchmarks.add(new SortedArrayListBenchmark("SortedArrayList.contains (64 items)") {
+            @Override
+            protected void setup(int size, KeyDistribution distribution) {
+                super.setup(Math.max(size, 64), distribution);
+                list.removeIf(value -> value >= 128);
+                sampler = distribution.sampler(64, 42);
+            }
+
+            @Override
+            protected Object runOperation() {
+                return list.contains(values[sampler.next()]);
+            }
+        });
+        benchmarks.add(new SortedArrayListBenchmark("SortedArrayList.insert+remove") {
+            @Override
+            protected Object runOperation() {
+                list.insert(values[sampler.next()]);
+                return list.remove(sampler.next());
+            }
+        });
+
+        new BenchmarkHarness(warmupMillis, measureMillis).runAll(benchmarks, sizes, KeyDistribution.values());
+    }
+
+    /**
+     * Builds a glossary with the given number of words, each with one to four definitions
+     * @param size - the number of words
+     * @param words - filled with the words, in sorted order
+     * @return the glossary
+     */
+    protected static Glossary buildGlossary(int size, String[] words) {
+        Random rng = new Random(size);
+        Glossary glossary = new Glossary();
+
+        for (int i = 0; i < size; i++) {
+            words[i] = String.format("word%09d", i);
+            int definitions = 1 + rng.nextInt(4);
+            for (int j = 0; j < definitions; j++) {
+                String partOfSpeech = validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size()));
+                glossary.option9(words[i], partOfSpeech, "definition " + j + " of " + words[i]);
+            }
+        }
+
+        return glossary;
+    }
+
+    /**
+     * Creates a temporary file that is deleted when the JVM exits
+     * @return the file
+     */
+    protected static File tempFile() {
+        try {
+            File file = File.createTempFile("glossary", ".txt");
+            file.deleteOnExit();
+            return file;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A benchmark that runs against a populated glossary
+     */
+    private abstract static class GlossaryBenchmark extends Benchmark {
+        protected Glossary glossary;
+        protected String[] words;
+        protected KeyDistribution.Sampler sampler;
+
+        GlossaryBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        protected void setup(int size, KeyDistribution distribution) {
+            words = new String[size];
+            glossary = buildGlossary(size, words);
+            sampler = distribution.sampler(size, 42);
+        }
+    }
+
+    /**
+     * A benchmark that runs against a FrozenGlossary built from a populated glossary
+     */
+    private abstract static class FrozenGlossaryBenchmark extends GlossaryBenchmark {
+        protected FrozenGlossary frozen;
+
+        FrozenGlossaryBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        protected void setup(int size, KeyDistribution distribution) {
+            super.setup(size, distribution);
+            frozen = new FrozenGlossary(glossary);
+        }
+    }
+
+    /**
+     * Loads a whole glossary file with populateGlossary
+     */
+    private static class PopulateBenchmark extends Benchmark {
+        protected File file;
+
+        PopulateBenchmark() {
+            super("populateGlossary");
+        }
+
+        @Override
+        protected void setup(int size, KeyDistribution distribution) {
+            file = tempFile();
+            try {
+                buildGlossary(size, new String[size]).option10(file.getPath());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected Object runOperation() {
+            try {
+                Glossary glossary = new Glossary();
+                glossary.populateGlossary(file.getPath());
+                return glossary;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected void teardown() {
+            file.delete();
+        }
+    }
+
+    /**
+     * Saves a whole glossary with option10
+     */
+    private static class SaveBenchmark extends GlossaryBenchmark {
+        protected File file;
+
+        SaveBenchmark() {
+            super("option10");
+        }
+
+        @Override
+        protected void setup(int size, KeyDistribution distribution) {
+            super.setup(size, distribution);
+            file = tempFile();
+        }
+
+        @Override
+        protected Object runOperation() {
+            try {
+                return glossary.option10(file.getPath());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected void teardown() {
+            file.delete();
+        }
+    }
+
+    /**
+     * A benchmark that runs against a SortedArrayList of the given size
+     */
+    private abstract static class SortedArrayListBenchmark extends Benchmark {
+        protected SortedArrayList<Integer> list;
+        protected Integer[] values;
+        protected KeyDistribution.Sampler sampler;
+
+        SortedArrayListBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        protected void setup(int size, KeyDistribution distribution) {
+            list = new SortedArrayList<>();
+            values = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = i * 2;
+                list.insert(values[i]);
+            }
+            sampler = distribution.sampler(size, 42);
+        }
+    }
+
+}
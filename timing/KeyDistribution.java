@@ -0,0 +1,79 @@
+package comprehensive.timing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The distributions benchmarks use to pick which of their keys to look up next.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key is equally likely
+     */
+    UNIFORM,
+
+    /**
+     * Key i is picked with probability proportional to 1 / (i + 1), so a few hot keys dominate
+     */
+    ZIPF;
+
+    /**
+     * Creates a sampler that picks key indexes in [0, keyCount) from this distribution
+     * @param keyCount - the number of keys
+     * @param seed - the random seed, so runs are repeatable
+     * @return the sampler
+     */
+    public Sampler sampler(int keyCount, long seed) {
+        return new Sampler(this, keyCount, seed);
+    }
+
+    /**
+     * Picks key indexes from a KeyDistribution
+     */
+    public static class Sampler {
+
+        private final Random rng;
+        private final int keyCount;
+        private final double[] cumulative;
+
+        /**
+         * Constructs a new Sampler
+         * @param distribution - the distribution to sample from
+         * @param keyCount - the number of keys
+         * @param seed - the random seed
+         */
+        private Sampler(KeyDistribution distribution, int keyCount, long seed) {
+            this.rng = new Random(seed);
+            this.keyCount = keyCount;
+
+            if (distribution == ZIPF) {
+                cumulative = new double[keyCount];
+                double sum = 0;
+                for (int i = 0; i < keyCount; i++) {
+                    sum += 1.0 / (i + 1);
+                    cumulative[i] = sum;
+                }
+                for (int i = 0; i < keyCount; i++) {
+                    cumulative[i] /= sum;
+                }
+            }
+            else {
+                cumulative = null;
+            }
+        }
+
+        /**
+         * Picks the next key index
+         * @return an index in [0, keyCount)
+         */
+        public int next() {
+            if (cumulative == null) {
+                return rng.nextInt(keyCount);
+            }
+
+            int index = Arrays.binarySearch(cumulative, rng.nextDouble());
+            return Math.min(index < 0 ? -(index + 1) : index, keyCount - 1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+import comprehensive.LazyGlossary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Times LazyGlossary.populateGlossary on generated glossary files with a fixed
+ * number of lines, where the problem size is the length of every definition in
+ * characters. The lazy load should take about the same time at every length.
+ * Pass eager as an argument to time Glossary.populateGlossary instead.
+ */
+public class LazyLoadTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "definition length";
+    private static int problemSizeMin = 32;
+    private static int problemSizeCount = 5;
+    private static int problemSizeStep = 224;
+    private static int experimentIterationCount = 5;
+    private static int numLines = 200_000;
+    protected boolean eager;
+    protected File file;
+    protected int fileDefinitionLength;
+
+    public LazyLoadTimingExperiment(boolean eager) {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        this.eager = eager;
+    }
+
+    public static void main(String[] args) {
+
+        LazyLoadTimingExperiment timingExperiment = new LazyLoadTimingExperiment(args.length > 0 && args[0].equals("eager"));
+        timingExperiment.printResults();
+
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+        if (fileDefinitionLength != problemSize) {
+            if (file != null) {
+                file.delete();
+            }
+            String definition = "x".repeat(problemSize);
+            file = ParallelLoadTimingExperiment.writeGlossaryFile(numLines, (line, word) -> definition);
+            fileDefinitionLength = problemSize;
+        }
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            if (eager) {
+                new Glossary().populateGlossary(file.getPath());
+            }
+            else {
+                new LazyGlossary().populateGlossary(file.getPath());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
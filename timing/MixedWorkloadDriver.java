@@ -0,0 +1,235 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+import comprehensive.GlossaryMetrics;
+import comprehensive.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives a Glossary with a closed loop of mixed reads and writes, where the
+ * problem size is the number of entries in a glossary file made by
+ * WorkloadGenerator. Each operation is issued as soon as the last one returns,
+ * on words picked by Zipf popularity. For every size it reports the load time
+ * and heap used, then the throughput, bytes allocated per operation, and for
+ * each operation its share, latency percentiles and misses, read from the
+ * glossary's GlossaryMetrics after the warmup.
+ *
+ * Usage: MixedWorkloadDriver [mix] [entries...]
+ * where mix is read-heavy (the default), balanced, write-heavy, or a list such as
+ * option3=60,option6=20,option2=10,option7=4,option9=3,option8=3.
+ * option2 reads a page of 100 words starting at the picked word, option7 updates
+ * the word's first definition, option8 removes it and option9 adds one.
+ */
+public class MixedWorkloadDriver {
+
+    private static long[] defaultSizes = {100_000, 1_000_000};
+    private static long warmupNanos = 2_000_000_000L;
+    private static long measureNanos = 5_000_000_000L;
+    private static int rangePageSize = 100;
+    private static double zipfExponent = 1.0;
+
+    private static final Map<String, String> PRESETS = Map.of(
+            "read-heavy", "option3=60,option6=20,option2=10,option7=4,option9=3,option8=3",
+            "balanced", "option3=35,option6=10,option2=5,option7=20,option9=15,option8=15",
+            "write-heavy", "option3=10,option6=5,option2=5,option7=30,option9=25,option8=25");
+
+    // Sorts after every generated word, so a range page runs on from the picked word
+    private static final String LAST_WORD = "\uffff";
+
+    private final GlossaryMetrics.Operation[] mix;
+    private final com.sun.management.ThreadMXBean threads;
+
+    // Written with every result so the JIT must compute it
+    private volatile int sink;
+
+    /**
+     * Constructs a new driver
+     * @param mix - the operations to run and their weights, as operation=weight pairs separated by commas
+     */
+    public MixedWorkloadDriver(String mix) {
+        this.mix = parseMix(mix);
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mix = PRESETS.get("read-heavy");
+        List<Long> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (PRESETS.containsKey(arg)) {
+                mix = PRESETS.get(arg);
+            }
+            else if (arg.contains("=")) {
+                mix = arg;
+            }
+            else {
+                sizes.add(Long.parseLong(arg.replace("_", "")));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (long size : defaultSizes) {
+                sizes.add(size);
+            }
+        }
+
+        System.out.println("mix: " + mix);
+        MixedWorkloadDriver driver = new MixedWorkloadDriver(mix);
+        for (long size : sizes) {
+            driver.run(size);
+        }
+    }
+
+    /**
+     * Generates a glossary file, loads it, and drives the mix against it, printing the results
+     * @param entries - the number of entries in the glossary
+     * @throws IOException - if the glossary file could not be written or read
+     */
+    public void run(long entries) throws IOException {
+        File file = File.createTempFile("glossary", ".txt");
+        file.deleteOnExit();
+
+        try {
+            WorkloadGenerator generator = new WorkloadGenerator(entries, entries);
+            generator.write(file.toPath());
+
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long start = System.nanoTime();
+            Glossary glossary = new Glossary();
+            GlossaryMetrics metrics = glossary.enableMetrics();
+            glossary.populateGlossary(file.getPath());
+            double loadSeconds = (System.nanoTime() - start) / 1e9;
+            System.gc();
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+            System.out.printf("%nentries %d: %d words, %.1f MB file, loaded in %.2f s, %.0f MB heap%n", entries,
+                    generator.getWordCount(), file.length() / 1e6, loadSeconds, (heapAfter - heapBefore) / 1e6);
+
+            drive(glossary, generator, metrics);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Runs the mix for the warmup and measurement periods and prints the results
+     * @param glossary - the loaded glossary
+     * @param generator - the generator that wrote it, for looking up words by rank
+     * @param metrics - the glossary's metrics
+     */
+    private void drive(Glossary glossary, WorkloadGenerator generator, GlossaryMetrics metrics) {
+        ZipfSampler words = new ZipfSampler(generator.getWordCount(), zipfExponent, 7);
+        Random rng = new Random(11);
+
+        long end = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < end) {
+            sink += runOperation(glossary, mix[rng.nextInt(mix.length)], generator.word(words.next()), rng);
+        }
+        metrics.reset();
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long operations = 0;
+        long start = System.nanoTime();
+        end = start + measureNanos;
+        long now = start;
+        while (now < end) {
+            sink += runOperation(glossary, mix[rng.nextInt(mix.length)], generator.word(words.next()), rng);
+            operations++;
+
+            // Reading the clock every few operations keeps it out of the measured loop
+            if ((operations & 15) == 0) {
+                now = System.nanoTime();
+            }
+        }
+        now = System.nanoTime();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%.0f ops/s, %.0f B/op (including picking and naming words)%n",
+                operations / ((now - start) / 1e9), (double) allocated / operations);
+        System.out.printf("%-22s %7s %10s %10s %10s %10s %12s %8s%n",
+                "operation", "share", "p50 (ns)", "p90 (ns)", "p99 (ns)", "p99.9 (ns)", "max (ns)", "misses");
+        for (GlossaryMetrics.Operation operation : GlossaryMetrics.Operation.values()) {
+            LatencyHistogram latencies = metrics.getLatencies(operation);
+            if (latencies.getCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-22s %6.1f%% %10d %10d %10d %10d %12d %8d%n", operation,
+                    100.0 * latencies.getCount() / operations,
+                    latencies.getPercentileNanos(0.50), latencies.getPercentileNanos(0.90),
+                    latencies.getPercentileNanos(0.99), latencies.getPercentileNanos(0.999),
+                    latencies.getMaxNanos(), metrics.getMissCount(operation));
+        }
+    }
+
+    /**
+     * Runs one operation on a word
+     * @param glossary - the glossary
+     * @param operation - the operation to run
+     * @param word - the word to run it on
+     * @param rng - the random source for definitions
+     * @return a value derived from the result, so the operation cannot be optimized away
+     */
+    private int runOperation(Glossary glossary, GlossaryMetrics.Operation operation, String word, Random rng) {
+        switch (operation) {
+            case OPTION2:
+                return glossary.option2Page(word, LAST_WORD, null, rangePageSize).getWords().size();
+            case OPTION3:
+                return glossary.option3(word, true).length();
+            case OPTION6:
+                return glossary.option6(word).length();
+            case OPTION7:
+                return glossary.option7(word, 1, "an updated definition " + rng.nextInt(1000)).length();
+            case OPTION8:
+                return glossary.option8(word, 1).length();
+            case OPTION9:
+                return glossary.option9(word, "noun", "an added definition " + rng.nextInt(1000)).length();
+            default:
+                throw new IllegalStateException("Unsupported operation " + operation);
+        }
+    }
+
+    /**
+     * Expands a mix into a table with one slot per unit of weight, so picking
+     * an operation is a single random index
+     * @param mix - operation=weight pairs separated by commas
+     * @return the table
+     * @throws IllegalArgumentException - if the mix names an unsupported operation or has no weight
+     */
+    private static GlossaryMetrics.Operation[] parseMix(String mix) {
+        Map<String, GlossaryMetrics.Operation> supported = new LinkedHashMap<>();
+        for (GlossaryMetrics.Operation operation : new GlossaryMetrics.Operation[] {GlossaryMetrics.Operation.OPTION2,
+                GlossaryMetrics.Operation.OPTION3, GlossaryMetrics.Operation.OPTION6, GlossaryMetrics.Operation.OPTION7,
+                GlossaryMetrics.Operation.OPTION8, GlossaryMetrics.Operation.OPTION9}) {
+            supported.put(operation.toString(), operation);
+        }
+
+        List<GlossaryMetrics.Operation> table = new ArrayList<>();
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+            GlossaryMetrics.Operation operation = parts.length == 2 ? supported.get(parts[0].trim()) : null;
+            if (operation == null) {
+                throw new IllegalArgumentException("Expected one of " + supported.keySet() + "=weight, but got " + pair);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("The mix must have some weight");
+        }
+
+        return table.toArray(new GlossaryMetrics.Operation[0]);
+    }
+}
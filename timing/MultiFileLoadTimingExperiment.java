@@ -0,0 +1,60 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times Glossary.populateGlossaryParallel on a list of generated glossary files,
+ * where the problem size is the number of files, each of the same size. With at
+ * least as many processors as files, the time should stay close to that of one file.
+ */
+public class MultiFileLoadTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "files";
+    private static int problemSizeMin = 1;
+    private static int problemSizeCount = 8;
+    private static int problemSizeStep = 1;
+    private static int experimentIterationCount = 5;
+    private static int linesPerFile = 250_000;
+    protected List<String> files;
+    protected List<String> filesToLoad;
+    protected Glossary glossary;
+
+    public MultiFileLoadTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        files = new ArrayList<>();
+        for (int i = 0; i < problemSizeMin + (problemSizeCount - 1) * problemSizeStep; i++) {
+            File file = ParallelLoadTimingExperiment.writeGlossaryFile(linesPerFile);
+            files.add(file.getPath());
+        }
+    }
+
+    public static void main(String[] args) {
+
+        MultiFileLoadTimingExperiment timingExperiment = new MultiFileLoadTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+        glossary = new Glossary();
+        filesToLoad = files.subList(0, problemSize);
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            glossary.populateGlossaryParallel(filesToLoad);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
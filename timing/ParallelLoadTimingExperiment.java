@@ -0,0 +1,100 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+
+/**
+ * Times Glossary.populateGlossaryParallel on a generated glossary file,
+ * where the problem size is the number of fork-join workers used to load it.
+ */
+public class ParallelLoadTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "workers";
+    private static int problemSizeMin = 1;
+    private static int problemSizeCount = Runtime.getRuntime().availableProcessors();
+    private static int problemSizeStep = 1;
+    private static int experimentIterationCount = 5;
+    private static int numLines = 1_000_000;
+    protected static Random rng = new Random();
+    protected File file;
+    protected Glossary glossary;
+    protected ForkJoinPool pool;
+
+    public ParallelLoadTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        file = writeGlossaryFile(numLines);
+    }
+
+    public static void main(String[] args) {
+
+        ParallelLoadTimingExperiment timingExperiment = new ParallelLoadTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    /**
+     * Writes a temporary word::pos::definition file with the given number of lines
+     * @param lines - the number of lines to write
+     * @return the written file, which is deleted when the JVM exits
+     */
+    protected static File writeGlossaryFile(int lines) {
+        return writeGlossaryFile(lines, (line, word) -> "definition " + line + " of " + word);
+    }
+
+    /**
+     * Writes a temporary word::pos::definition file with the given number of lines
+     * and with definitions made by the given function
+     * @param lines - the number of lines to write
+     * @param definition - makes the definition for a line from its number and word
+     * @return the written file, which is deleted when the JVM exits
+     */
+    protected static File writeGlossaryFile(int lines, BiFunction<Integer, String, String> definition) {
+        List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+        try {
+            File file = File.createTempFile("glossary", ".txt");
+            file.deleteOnExit();
+
+            try (PrintWriter writer = new PrintWriter(file)) {
+                for (int i = 0; i < lines; i++) {
+                    String word = "word" + rng.nextInt(lines / 4 + 1);
+                    String partOfSpeech = validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size()));
+                    writer.print(word + "::" + partOfSpeech + "::" + definition.apply(i, word) + "\n");
+                }
+            }
+
+            return file;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        glossary = new Glossary();
+        pool = new ForkJoinPool(problemSize);
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            glossary.populateGlossaryParallel(file.getPath(), pool);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package comprehensive.timing;
+
+import comprehensive.Entry;
+import comprehensive.Glossary;
+import comprehensive.GlossaryWriter;
+import comprehensive.SortedArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the save throughput of the buffered GlossaryWriter, sequential
+ * and parallel on the common pool, against the previous
+ * PrintWriter.printf-per-entry save path.
+ */
+public class SaveTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "numEntries";
+    private static int problemSizeMin = 100_000;
+    private static int problemSizeCount = 5;
+    private static int problemSizeStep = 200_000;
+    private static int experimentIterationCount = 5;
+    protected static Random rng = new Random();
+    protected Glossary glossary;
+    protected int glossarySize = -1;
+    protected File file;
+    protected boolean legacy;
+    protected boolean parallel;
+
+    public SaveTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        try {
+            file = File.createTempFile("glossary", ".txt");
+            file.deleteOnExit();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+
+        SaveTimingExperiment timingExperiment = new SaveTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    /**
+     * Run the timing experiment for both save paths and print their throughput.
+     */
+    @Override
+    protected void printResults() {
+        System.out.println(problemSizeDescription + "\tprintf (MB/s)\tbuffered (MB/s)\tparallel (MB/s)");
+        int size = problemSizeMin;
+        for (int i = 0; i < problemSizeCount; i++) {
+            legacy = true;
+            long legacyTime = computeMedianElapsedTime(size);
+            legacy = false;
+            long bufferedTime = computeMedianElapsedTime(size);
+            parallel = true;
+            long parallelTime = computeMedianElapsedTime(size);
+            parallel = false;
+            long bytes = file.length();
+
+            System.out.printf("%d\t\t%.1f\t\t%.1f\t\t%.1f%n", size, megabytesPerSecond(bytes, legacyTime),
+                    megabytesPerSecond(bytes, bufferedTime), megabytesPerSecond(bytes, parallelTime));
+            size += problemSizeStep;
+        }
+    }
+
+    /**
+     * Converts a number of bytes written in a given time to megabytes per second
+     * @param bytes - the number of bytes written
+     * @param nanos - the time taken, in nanoseconds
+     * @return the throughput in megabytes per second
+     */
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+
+        // Building the glossary is not timed, so reuse it across iterations of the same size
+        if (problemSize == glossarySize) {
+            return;
+        }
+
+        glossary = new Glossary();
+        glossarySize = problemSize;
+
+        List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+        for (int i = 0; i < problemSize; i++) {
+            String word = "word" + rng.nextInt(problemSize / 4 + 1);
+            String partOfSpeech = validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size()));
+            glossary.option9(word, partOfSpeech, "a definition of " + word + " that is about as long as a real one " + i);
+        }
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            if (legacy) {
+                legacySave();
+            }
+            else if (parallel) {
+                new GlossaryWriter().saveParallel(glossary.getGlossary(), file.toPath(), ForkJoinPool.commonPool());
+            }
+            else {
+                new GlossaryWriter().save(glossary.getGlossary(), file.toPath());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The save path option10 used before GlossaryWriter, kept here as the baseline
+     * @throws IOException - if the file could not be written
+     */
+    private void legacySave() throws IOException {
+        PrintWriter writer = new PrintWriter(file);
+        TreeMap<String, SortedArrayList<Entry>> words = glossary.getGlossary();
+
+        for (String word : words.keySet()) {
+            SortedArrayList<Entry> entries = words.get(word);
+
+            for (Entry entry : entries) {
+
+                if (!entry.equals(words.firstEntry().getValue().min())) {
+                    writer.print("\n");
+                }
+
+                writer.printf("%s::%s::%s", word, entry.getPartOfSpeech(), entry.getDefinition());
+            }
+        }
+
+        writer.close();
+    }
+
+}
@@ -0,0 +1,249 @@
+package comprehensive.timing;
+
+import comprehensive.ConcurrentGlossary;
+import comprehensive.Glossary;
+import comprehensive.GlossaryServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the throughput and latency of a GlossaryServer on localhost,
+ * where the problem size is the number of client threads. Each client sends
+ * its next request as soon as the last one is answered, over a kept-alive
+ * connection. Words are picked from a Zipf distribution, and the mix is 80%
+ * definitions, 10% parts of speech, 5% one page of a range and 5% updates.
+ *
+ * With no arguments, a server is started in this process on a synthetic
+ * glossary; given a port, an already running server is measured instead, in
+ * which case the words are read from its /range endpoint. The updates would
+ * overwrite real definitions in a running server, so against one they are only
+ * sent when --writes follows the port, and are otherwise replaced by more
+ * definition lookups.
+ */
+public class ServerLoadGenerator {
+
+    private static int clientCountMin = 1;
+    private static int clientCountMax = 4 * Runtime.getRuntime().availableProcessors();
+    private static int numWords = 200_000;
+    private static long warmupNanos = 2_000_000_000L;
+    private static long measureNanos = 5_000_000_000L;
+    private static int maxWordsFromServer = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        GlossaryServer server = null;
+        int port;
+        List<String> words;
+        boolean writes = true;
+
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+            words = fetchWords(port);
+            writes = args.length > 1 && args[1].equals("--writes");
+        }
+        else {
+            Glossary glossary = new Glossary();
+            words = new ArrayList<>(numWords);
+            List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+            Random rng = new Random(42);
+            for (int i = 0; i < numWords; i++) {
+                String word = "word" + i;
+                words.add(word);
+                glossary.option9(word, validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size())), "a definition of " + word);
+            }
+            server = new GlossaryServer(new ConcurrentGlossary(glossary), 0);
+            server.start();
+            port = server.getPort();
+        }
+
+        System.out.println("clients\trequests/s\tp50 us\tp99 us\tp99.9 us\terrors");
+        for (int clients = clientCountMin; clients <= clientCountMax; clients *= 2) {
+            runLevel(port, words, clients, writes);
+        }
+
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Runs one level of load and prints its results
+     * @param port - the port the server listens on
+     * @param words - the words to look up
+     * @param clients - the number of client threads
+     * @param writes - whether the mix includes updates
+     */
+    private static void runLevel(int port, List<String> words, int clients, boolean writes) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + port;
+
+        Client[] workers = new Client[clients];
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Client(client, base, words, writes, i, start + warmupNanos, start + warmupNanos + measureNanos);
+            threads[i] = new Thread(workers[i]);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = 0;
+        long errors = 0;
+        for (Client worker : workers) {
+            total += worker.count;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Client worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%d\t%.0f\t\t%.0f\t%.0f\t%.0f\t\t%d%n", clients, total / (measureNanos / 1e9),
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                percentile(latencies, 0.999) / 1e3, errors);
+    }
+
+    /**
+     * Gets a percentile of some sorted latencies
+     * @param sorted - the latencies in nanoseconds, in increasing order
+     * @param fraction - the percentile, between 0 and 1
+     * @return the latency at that percentile, or 0 if there are none
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    /**
+     * Pages through a running server's words to use as lookup keys
+     * @param port - the port the server listens on
+     * @return up to maxWordsFromServer of its words
+     */
+    private static List<String> fetchWords(int port) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<String> words = new ArrayList<>();
+
+        // The words are plain JSON strings, so they are picked out without a JSON parser
+        String first = "http://localhost:" + port + "/range?start=!&end=%EF%BF%BF&pageSize=10000";
+        String uri = first;
+        while (uri != null && words.size() < maxWordsFromServer) {
+            String body = client.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString()).body();
+            int wordsEnd = body.indexOf("],\"resume\":");
+            for (String quoted : body.substring("{\"words\":[".length(), wordsEnd).split("\",\"")) {
+                String word = quoted.replace("\"", "");
+                if (!word.isEmpty()) {
+                    words.add(word.replace("\\\\", "\\"));
+                }
+            }
+            String token = body.substring(wordsEnd + "],\"resume\":".length(), body.length() - 1);
+            uri = token.equals("null") ? null : first + "&resume=" + encode(token.substring(1, token.length() - 1));
+        }
+
+        return words;
+    }
+
+    /**
+     * Form-encodes a parameter value
+     * @param value - the value
+     * @return the encoded value
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One closed-loop client, recording the latency of each request it sends while measuring
+     */
+    private static class Client implements Runnable {
+
+        private final HttpClient client;
+        private final String base;
+        private final List<String> words;
+        private final boolean writes;
+        private final KeyDistribution.Sampler sampler;
+        private final long measureFrom;
+        private final long measureUntil;
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private long errors;
+
+        Client(HttpClient client, String base, List<String> words, boolean writes, long seed, long measureFrom, long measureUntil) {
+            this.client = client;
+            this.base = base;
+            this.words = words;
+            this.writes = writes;
+            this.sampler = KeyDistribution.ZIPF.sampler(words.size(), seed);
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            while (now < measureUntil) {
+                HttpRequest request = nextRequest();
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status != 200) {
+                        errors++;
+                    }
+                }
+                catch (IOException | InterruptedException e) {
+                    errors++;
+                }
+
+                long end = System.nanoTime();
+                if (now >= measureFrom && end <= measureUntil) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = end - now;
+                }
+                now = end;
+            }
+        }
+
+        /**
+         * Builds the next request in the mix
+         * @return the request
+         */
+        private HttpRequest nextRequest() {
+            String word = encode(words.get(sampler.next()));
+            int roll = ThreadLocalRandom.current().nextInt(100);
+
+            if (roll < 80 || (roll >= 95 && !writes)) {
+                return HttpRequest.newBuilder(URI.create(base + "/definitions?word=" + word)).build();
+            }
+            if (roll < 90) {
+                return HttpRequest.newBuilder(URI.create(base + "/parts-of-speech?word=" + word)).build();
+            }
+            if (roll < 95) {
+                return HttpRequest.newBuilder(URI.create(base + "/range?pageSize=50&start=" + word + "&end=%EF%BF%BF")).build();
+            }
+
+            // Updating the first definition keeps every word's definition count steady
+            String form = "word=" + word + "&number=1&definition=" + encode("an updated definition " + ThreadLocalRandom.current().nextInt());
+            return HttpRequest.newBuilder(URI.create(base + "/update"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package comprehensive.timing;
+
+import comprehensive.ShardedGlossary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Times ShardedGlossary.populateGlossary on a generated glossary file,
+ * where the problem size is both the number of fork-join workers and
+ * the number of shards. Compare with ParallelLoadTimingExperiment.
+ */
+public class ShardedLoadTimingExperiment extends ParallelLoadTimingExperiment {
+
+    protected ShardedGlossary sharded;
+
+    public static void main(String[] args) {
+
+        ShardedLoadTimingExperiment timingExperiment = new ShardedLoadTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+        super.setupExperiment(problemSize);
+        sharded = new ShardedGlossary(problemSize, pool);
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            sharded.populateGlossary(file.getPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
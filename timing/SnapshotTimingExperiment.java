@@ -0,0 +1,110 @@
+package comprehensive.timing;
+
+import comprehensive.Glossary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares cold start time from the word::pos::definition text format
+ * against cold start time from a binary snapshot of the same glossary.
+ */
+public class SnapshotTimingExperiment extends TimingExperiment {
+
+    private static String problemSizeDescription = "numEntries";
+    private static int problemSizeMin = 100_000;
+    private static int problemSizeCount = 5;
+    private static int problemSizeStep = 200_000;
+    private static int experimentIterationCount = 5;
+    protected static Random rng = new Random();
+    protected int filesSize = -1;
+    protected File textFile;
+    protected File snapshotFile;
+    protected boolean snapshot;
+
+    public SnapshotTimingExperiment() {
+        super(problemSizeDescription, problemSizeMin, problemSizeCount, problemSizeStep, experimentIterationCount);
+        try {
+            textFile = File.createTempFile("glossary", ".txt");
+            textFile.deleteOnExit();
+            snapshotFile = File.createTempFile("glossary", ".snapshot");
+            snapshotFile.deleteOnExit();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+
+        SnapshotTimingExperiment timingExperiment = new SnapshotTimingExperiment();
+        timingExperiment.printResults();
+
+    }
+
+    /**
+     * Run the timing experiment for both formats and print their load times.
+     */
+    @Override
+    protected void printResults() {
+        System.out.println(problemSizeDescription + "\ttext (ns)\tsnapshot (ns)");
+        int size = problemSizeMin;
+        for (int i = 0; i < problemSizeCount; i++) {
+            snapshot = false;
+            long textTime = computeMedianElapsedTime(size);
+            snapshot = true;
+            long snapshotTime = computeMedianElapsedTime(size);
+
+            System.out.println(size + "\t\t" + textTime + "\t" + snapshotTime);
+            size += problemSizeStep;
+        }
+    }
+
+    @Override
+    protected void setupExperiment(int problemSize) {
+
+        // Writing the files is not timed, so reuse them across iterations of the same size
+        if (problemSize == filesSize) {
+            return;
+        }
+
+        Glossary glossary = new Glossary();
+        filesSize = problemSize;
+
+        List<String> validPartsOfSpeech = List.of("noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj");
+
+        for (int i = 0; i < problemSize; i++) {
+            String word = "word" + rng.nextInt(problemSize / 4 + 1);
+            String partOfSpeech = validPartsOfSpeech.get(rng.nextInt(validPartsOfSpeech.size()));
+            glossary.option9(word, partOfSpeech, "a definition of " + word + " that is about as long as a real one " + i);
+        }
+
+        try {
+            glossary.option10(textFile.getPath());
+            glossary.saveSnapshot(snapshotFile.getPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void runComputation() {
+        try {
+            Glossary glossary = new Glossary();
+            if (snapshot) {
+                glossary.loadSnapshot(snapshotFile.getPath());
+            }
+            else {
+                glossary.populateGlossary(textFile.getPath());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
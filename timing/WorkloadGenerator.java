@@ -0,0 +1,229 @@
+package comprehensive.timing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes synthetic word::pos::definition glossary files of any size, from a few
+ * thousand lines to hundreds of millions, streaming them so memory use does not
+ * grow with the file. Words are ranked by popularity: popular words get more
+ * senses, falling off as a Zipf law on top of one to a few senses for every
+ * word, as in a real dictionary. Names are made of two-letter syllables and
+ * scrambled so that popularity is not related to alphabetical order. Parts of
+ * speech follow rough English frequencies, and definitions are drawn from a
+ * Zipf-distributed vocabulary with log-normal lengths around 50 characters.
+ * The word at any rank can be recomputed with word, so drivers can look up
+ * popular words without keeping the word list.
+ *
+ * Usage: WorkloadGenerator entries file [seed]
+ */
+public class WorkloadGenerator {
+
+    private static final String CONSONANTS = "bcdfghklmnprstvz";
+    private static final String VOWELS = "aeio";
+    private static final int SYLLABLES = CONSONANTS.length() * VOWELS.length();
+
+    private static final String[] PARTS_OF_SPEECH = {"noun", "verb", "adj", "adv", "pron", "prep", "conj", "interj"};
+    private static final int[] PART_OF_SPEECH_WEIGHTS = {50, 20, 15, 6, 2, 2, 2, 3};
+
+    private static final int VOCABULARY_SIZE = 4096;
+    private static final double MEDIAN_DEFINITION_LENGTH = 48;
+    private static final double DEFINITION_LENGTH_SIGMA = 0.5;
+    private static final int MIN_DEFINITION_LENGTH = 12;
+    private static final int MAX_DEFINITION_LENGTH = 400;
+
+    // The most popular word gets about this many extra senses, the next half as many, and so on
+    private static final int HOT_SENSES = 40;
+    private static final int MAX_SENSES = 64;
+
+    private final long entries;
+    private final long seed;
+    private final int nameBits;
+    private final String[] vocabulary;
+    private int wordCount;
+
+    /**
+     * Constructs a new generator
+     * @param entries - the number of lines to write
+     * @param seed - the random seed, so the same file can be generated again
+     */
+    public WorkloadGenerator(long entries, long seed) {
+        if (entries < 1 || entries > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The number of entries must be between 1 and " + Integer.MAX_VALUE);
+        }
+
+        this.entries = entries;
+        this.seed = seed;
+
+        // Every word has at least one line, so the ranks all fit in this many bits
+        this.nameBits = 64 - Long.numberOfLeadingZeros(entries);
+
+        Random rng = new Random(seed ^ 0x5DEECE66DL);
+        this.vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder term = new StringBuilder();
+            int syllables = 1 + rng.nextInt(3);
+            for (int j = 0; j < syllables; j++) {
+                appendSyllable(term, rng.nextInt(SYLLABLES));
+            }
+            vocabulary[i] = term.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: WorkloadGenerator entries file [seed]");
+            return;
+        }
+
+        long entries = Long.parseLong(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        WorkloadGenerator generator = new WorkloadGenerator(entries, seed);
+
+        long start = System.nanoTime();
+        generator.write(Paths.get(args[1]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Wrote %d entries for %d words (%.1f MB) to %s in %.1f s%n", entries, generator.getWordCount(),
+                Files.size(Paths.get(args[1])) / 1e6, args[1], seconds);
+    }
+
+    /**
+     * Getter for the number of words, which is known once the file has been written
+     * @return the number of words written, ranked 0 to wordCount - 1
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the word at a popularity rank. Different ranks always give different words.
+     * @param rank - the rank, where 0 is the most popular
+     * @return the word
+     */
+    public String word(int rank) {
+
+        // Multiplying by an odd number and xor-shifting both permute the values of nameBits bits
+        long mask = (1L << nameBits) - 1;
+        int shift = (nameBits + 1) / 2;
+        long x = (rank * 0x9E3779B97F4A7C15L) & mask;
+        x ^= x >>> shift;
+        x = (x * 0xBF58476D1CE4E5B9L) & mask;
+        x ^= x >>> shift;
+
+        // Bijective base-SYLLABLES numbering, offset so that every word has at least two syllables
+        StringBuilder word = new StringBuilder(12);
+        long n = x + SYLLABLES + 1;
+        while (n > 0) {
+            n--;
+            appendSyllable(word, (int) (n % SYLLABLES));
+            n /= SYLLABLES;
+        }
+
+        return word.toString();
+    }
+
+    /**
+     * Writes the glossary file, replacing anything already at the path
+     * @param target - the path to write to
+     * @throws IOException - if the file could not be written
+     */
+    public void write(Path target) throws IOException {
+        Random rng = new Random(seed);
+        ZipfSampler terms = new ZipfSampler(VOCABULARY_SIZE, 1.0, seed + 1);
+        int totalWeight = 0;
+        for (int weight : PART_OF_SPEECH_WEIGHTS) {
+            totalWeight += weight;
+        }
+
+        StringBuilder line = new StringBuilder(MAX_DEFINITION_LENGTH + 64);
+        long written = 0;
+        int rank = 0;
+
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(target, StandardCharsets.US_ASCII), 1 << 20)) {
+            while (written < entries) {
+                String word = word(rank);
+                int senses = senses(rank, rng);
+
+                for (int i = 0; i < senses && written < entries; i++) {
+                    line.setLength(0);
+                    line.append(word).append("::").append(partOfSpeech(rng, totalWeight)).append("::");
+                    appendDefinition(line, rng, terms);
+                    line.append('\n');
+                    writer.append(line);
+                    written++;
+                }
+                rank++;
+            }
+        }
+
+        wordCount = rank;
+    }
+
+    /**
+     * Picks how many senses the word at a rank has
+     * @param rank - the word's rank
+     * @param rng - the random source
+     * @return the number of senses, at least 1
+     */
+    private static int senses(int rank, Random rng) {
+        int senses = 1 + HOT_SENSES / (rank + 1);
+
+        // A geometric number of extra senses, averaging about one
+        while (rng.nextInt(100) < 50) {
+            senses++;
+        }
+
+        return Math.min(senses, MAX_SENSES);
+    }
+
+    /**
+     * Picks a part of speech by its weight
+     * @param rng - the random source
+     * @param totalWeight - the sum of the weights
+     * @return the part of speech's label
+     */
+    private static String partOfSpeech(Random rng, int totalWeight) {
+        int roll = rng.nextInt(totalWeight);
+        for (int i = 0; i < PARTS_OF_SPEECH.length; i++) {
+            roll -= PART_OF_SPEECH_WEIGHTS[i];
+            if (roll < 0) {
+                return PARTS_OF_SPEECH[i];
+            }
+        }
+
+        return PARTS_OF_SPEECH[0];
+    }
+
+    /**
+     * Appends a definition of log-normally distributed length made of vocabulary terms
+     * @param line - the line to append to
+     * @param rng - the random source for the length
+     * @param terms - the sampler for the terms
+     */
+    private void appendDefinition(StringBuilder line, Random rng, ZipfSampler terms) {
+        double length = MEDIAN_DEFINITION_LENGTH * Math.exp(DEFINITION_LENGTH_SIGMA * rng.nextGaussian());
+        int target = (int) Math.max(MIN_DEFINITION_LENGTH, Math.min(MAX_DEFINITION_LENGTH, length));
+
+        int start = line.length();
+        line.append(vocabulary[terms.next()]);
+        while (line.length() - start < target) {
+            line.append(' ').append(vocabulary[terms.next()]);
+        }
+    }
+
+    /**
+     * Appends one two-letter syllable
+     * @param builder - the builder to append to
+     * @param syllable - the syllable's index, in [0, SYLLABLES)
+     */
+    private static void appendSyllable(StringBuilder builder, int syllable) {
+        builder.append(CONSONANTS.charAt(syllable / VOWELS.length())).append(VOWELS.charAt(syllable % VOWELS.length()));
+    }
+}
@@ -0,0 +1,109 @@
+package comprehensive.timing;
+
+import java.util.Random;
+
+/**
+ * Picks ranks in [0, count) with probability proportional to 1 / (rank + 1)^exponent,
+ * using rejection-inversion sampling (Hormann and Derflinger, 1996). Unlike
+ * KeyDistribution.Sampler, it keeps no table of cumulative probabilities, so it
+ * takes constant memory and setup time however many ranks there are.
+ */
+public class ZipfSampler {
+
+    private final Random rng;
+    private final int count;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralCount;
+    private final double s;
+
+    /**
+     * Constructs a new ZipfSampler
+     * @param count - the number of ranks
+     * @param exponent - how steeply popularity falls with rank, where 1 is the classic Zipf law
+     * @param seed - the random seed, so runs are repeatable
+     */
+    public ZipfSampler(int count, double exponent, long seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("There must be at least one rank");
+        }
+
+        this.rng = new Random(seed);
+        this.count = count;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralCount = hIntegral(count + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Picks the next rank
+     * @return a rank in [0, count), where 0 is the most popular
+     */
+    public int next() {
+        while (true) {
+            double u = hIntegralCount + rng.nextDouble() * (hIntegralX1 - hIntegralCount);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            k = Math.max(1, Math.min(count, k));
+
+            // Most samples are accepted by the cheap first test
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k - 1;
+            }
+        }
+    }
+
+    /**
+     * The integral of h, chosen so that hIntegral(x) - hIntegral(x - 1) bounds h(x) from above
+     * @param x - the point to evaluate at
+     * @return the value of the integral
+     */
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    /**
+     * The unnormalized probability of the rank x - 1
+     * @param x - the point to evaluate at
+     * @return x^-exponent
+     */
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    /**
+     * The inverse of hIntegral
+     * @param x - the point to evaluate at
+     * @return the value whose hIntegral is x
+     */
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    /**
+     * Computes log(1 + x) / x, staying accurate as x approaches 0
+     * @param x - the point to evaluate at
+     * @return log(1 + x) / x
+     */
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /**
+     * Computes (e^x - 1) / x, staying accurate as x approaches 0
+     * @param x - the point to evaluate at
+     * @return (e^x - 1) / x
+     */
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}